@@ -0,0 +1,721 @@
+package backend.databaseManager;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+import backend.models.*;
+import backend.models.Student.studentCourseInfo;
+import backend.models.parents.User;
+
+/**
+ * Compact binary snapshot format for the users and courses databases
+ * Used by ReadWrite for every snapshot file ending in ".bin"
+ *
+ * Layout (all fixed-size numbers big-endian):
+ * - int magic "SFDB", short version, byte kind (users / courses)
+ * - string table: int count, int[count + 1] offsets, UTF-8 blob
+ *   every distinct string is stored once, records reference it by index
+ * - int recordCount, int[recordCount + 1] record offsets, records
+ *
+ * Inside a record counts and string references are varints, lists and maps
+ * are written as (size + 1) so that 0 still means null. Course records start
+ * with their header fields (id, title, instructor, status) and every lesson
+ * is length-prefixed, so a reader can skip lesson bodies.
+ *
+ * Version 2 adds the lesson / question id counters (Course.nextLessonNumber
+ * after the roster, Quiz.nextQuestionNumber after maxAttempts). Version 1
+ * files are still read, their counters are 0.
+ *
+ * Version 3 adds the answers kept with each quiz attempt (after the attempt
+ * scores of a course info). Older files are read with no answers.
+ *
+ * The format is lossless against the JSON snapshots, see main() for the
+ * import / export tool.
+ */
+public class BinarySnapshotCodec {
+
+    public static final String BINARY_EXTENSION = ".bin";
+
+    static final int MAGIC = 0x53464442; // "SFDB"
+    static final short VERSION = 3;
+    static final short OLDEST_READABLE_VERSION = 1;
+    static final byte KIND_EMPTY = 0;
+    static final byte KIND_USERS = 1;
+    static final byte KIND_COURSES = 2;
+
+    /**
+     * @return true if the snapshot file uses the binary format
+     */
+    public static boolean isBinary(String filename) {
+        return filename != null && filename.toLowerCase().endsWith(BINARY_EXTENSION);
+    }
+
+    // ==================== WRITING ====================
+
+    /**
+     * Encodes a list of users or courses
+     *
+     * @param items Users or courses (a list must not mix both)
+     * @param out Destination stream, not closed
+     */
+    public void write(List<?> items, OutputStream out) throws IOException {
+        byte kind = KIND_EMPTY;
+        if (!items.isEmpty()) {
+            kind = items.get(0) instanceof User ? KIND_USERS : KIND_COURSES;
+        }
+
+        // records are encoded first so the string table is complete before it is written
+        StringTable strings = new StringTable();
+        RecordOutput records = new RecordOutput(strings);
+        int[] offsets = new int[items.size() + 1];
+        for (int i = 0; i < items.size(); i++) {
+            offsets[i] = records.size();
+            Object item = items.get(i);
+            if (kind == KIND_USERS) {
+                records.writeUser((User) item);
+            } else {
+                records.writeCourse((Course) item);
+            }
+        }
+        offsets[items.size()] = records.size();
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeByte(kind);
+        strings.writeTo(data);
+        data.writeInt(items.size());
+        for (int offset : offsets) {
+            data.writeInt(offset);
+        }
+        records.writeTo(data);
+        data.flush();
+    }
+
+    // ==================== READING ====================
+
+    /**
+     * Decodes every entity of a binary snapshot file in file order
+     *
+     * @param file Binary snapshot file
+     * @param type User.class or Course.class
+     * @param consumer Receives every decoded entity
+     * @return Number of entities decoded
+     */
+    public <T> int read(File file, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        ByteBuffer buffer = map(file);
+        Header header = Header.read(buffer);
+        if (header.recordCount > 0 && header.kind != expectedKind(type)) {
+            throw new IOException("Snapshot " + file.getPath() + " does not contain " + type.getSimpleName());
+        }
+        String[] strings = header.decodeAllStrings();
+        for (int i = 0; i < header.recordCount; i++) {
+            RecordInput in = new RecordInput(buffer, header.recordStart(i), strings, header.version);
+            Object item = header.kind == KIND_USERS ? in.readUser() : in.readCourse();
+            consumer.accept(type.cast(item));
+        }
+        return header.recordCount;
+    }
+
+    // MAPS THE WHOLE FILE READ ONLY
+    static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static byte expectedKind(Class<?> type) {
+        return User.class.isAssignableFrom(type) ? KIND_USERS : KIND_COURSES;
+    }
+
+    /**
+     * Fixed part of a snapshot: kind, string table and record offsets
+     * Only offsets are read here, strings are decoded on demand
+     */
+    static class Header {
+        private ByteBuffer source;
+        short version;
+        byte kind;
+        int stringCount;
+        int stringOffsetsStart;
+        int stringBlobStart;
+        int recordCount;
+        int recordOffsetsStart;
+        int recordsStart;
+
+        static Header read(ByteBuffer buffer) throws IOException {
+            if (buffer.limit() < 7 || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a Skill Forge binary snapshot");
+            }
+            short version = buffer.getShort(4);
+            if (version < OLDEST_READABLE_VERSION || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            Header header = new Header();
+            header.source = buffer;
+            header.version = version;
+            header.kind = buffer.get(6);
+            header.stringCount = buffer.getInt(7);
+            header.stringOffsetsStart = 11;
+            header.stringBlobStart = header.stringOffsetsStart + 4 * (header.stringCount + 1);
+            int stringBlobEnd = header.stringBlobStart + buffer.getInt(header.stringOffsetsStart + 4 * header.stringCount);
+            header.recordCount = buffer.getInt(stringBlobEnd);
+            header.recordOffsetsStart = stringBlobEnd + 4;
+            header.recordsStart = header.recordOffsetsStart + 4 * (header.recordCount + 1);
+            return header;
+        }
+
+        int recordStart(int index) {
+            return recordsStart + source.getInt(recordOffsetsStart + 4 * index);
+        }
+
+        String decodeString(int index) {
+            int start = source.getInt(stringOffsetsStart + 4 * index);
+            int end = source.getInt(stringOffsetsStart + 4 * (index + 1));
+            byte[] bytes = new byte[end - start];
+            ByteBuffer view = source.duplicate();
+            view.position(stringBlobStart + start);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String[] decodeAllStrings() {
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                strings[i] = decodeString(i);
+            }
+            return strings;
+        }
+    }
+
+    // ==================== STRING TABLE ====================
+
+    private static class StringTable {
+        private final HashMap<String, Integer> indexes = new HashMap<String, Integer>();
+        private final ArrayList<byte[]> values = new ArrayList<byte[]>();
+        private int blobSize;
+
+        int intern(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                values.add(bytes);
+                blobSize += bytes.length;
+                indexes.put(value, index);
+            }
+            return index;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(values.size());
+            int offset = 0;
+            for (byte[] value : values) {
+                out.writeInt(offset);
+                offset += value.length;
+            }
+            out.writeInt(blobSize);
+            for (byte[] value : values) {
+                out.write(value);
+            }
+        }
+    }
+
+    // ==================== RECORD ENCODING ====================
+
+    private static class RecordOutput extends ByteArrayOutputStream {
+        private final StringTable strings;
+
+        RecordOutput(StringTable strings) {
+            super(64 * 1024);
+            this.strings = strings;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.write(buf, 0, count);
+        }
+
+        void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        // signed numbers are zig-zag encoded so small negatives stay small
+        void signed(int value) {
+            varint((value << 1) ^ (value >> 31));
+        }
+
+        void fixedLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        // null is 0, any other string is its table index + 1
+        void string(String value) {
+            varint(value == null ? 0 : strings.intern(value) + 1);
+        }
+
+        // null is 0, any other list is its size + 1
+        void stringList(List<String> values) {
+            if (values == null) {
+                varint(0);
+                return;
+            }
+            varint(values.size() + 1);
+            for (String value : values) {
+                string(value);
+            }
+        }
+
+        void writeUser(User user) {
+            string(user.getRole());
+            string(user.getUserId());
+            string(user.getUsername());
+            string(user.getEmail());
+            string(user.getPasswordHash());
+            if (user instanceof Student) {
+                HashMap<String, studentCourseInfo> enrolled = ((Student) user).getEnrolledCourses();
+                varint(enrolled.size() + 1);
+                for (Map.Entry<String, studentCourseInfo> entry : enrolled.entrySet()) {
+                    string(entry.getKey());
+                    writeCourseInfo(entry.getValue());
+                }
+            } else if (user instanceof Instructor) {
+                stringList(((Instructor) user).getCreatedCourses());
+            }
+        }
+
+        void writeCourseInfo(studentCourseInfo info) {
+            if (info == null) {
+                write(0);
+                return;
+            }
+            write(1);
+            string(info.getCourseId());
+            stringList(info.getProgress());
+            writeCertificate(info.getCertificate());
+            HashMap<String, ArrayList<Integer>> attempts = info.getQuizAttempts();
+            varint(attempts.size() + 1);
+            for (Map.Entry<String, ArrayList<Integer>> entry : attempts.entrySet()) {
+                string(entry.getKey());
+                ArrayList<Integer> scores = entry.getValue();
+                if (scores == null) {
+                    varint(0);
+                    continue;
+                }
+                varint(scores.size() + 1);
+                for (Integer score : scores) {
+                    signed(score);
+                }
+            }
+            HashMap<String, ArrayList<HashMap<String, String>>> answers = info.getQuizAnswers();
+            varint(answers.size() + 1);
+            for (Map.Entry<String, ArrayList<HashMap<String, String>>> entry : answers.entrySet()) {
+                string(entry.getKey());
+                ArrayList<HashMap<String, String>> sheets = entry.getValue();
+                if (sheets == null) {
+                    varint(0);
+                    continue;
+                }
+                varint(sheets.size() + 1);
+                for (HashMap<String, String> sheet : sheets) {
+                    if (sheet == null) {
+                        varint(0);
+                        continue;
+                    }
+                    varint(sheet.size() + 1);
+                    for (Map.Entry<String, String> answer : sheet.entrySet()) {
+                        string(answer.getKey());
+                        string(answer.getValue());
+                    }
+                }
+            }
+        }
+
+        void writeCertificate(Certificate certificate) {
+            if (certificate == null) {
+                write(0);
+                return;
+            }
+            write(1);
+            string(certificate.getCertificateId());
+            string(certificate.getStudentId());
+            string(certificate.getStudentName());
+            string(certificate.getCourseId());
+            string(certificate.getCourseTitle());
+            string(certificate.getInstructorName());
+            write(certificate.getIssueDate() != null ? 1 : 0);
+            if (certificate.getIssueDate() != null) {
+                fixedLong(certificate.getIssueDate().getTime());
+            }
+            fixedLong(Double.doubleToLongBits(certificate.getFinalScore()));
+            string(certificate.getCertificateUrl());
+        }
+
+        void writeCourse(Course course) {
+            // header fields first, a mapped reader can stop after them
+            string(course.getCourseId());
+            string(course.getTitle());
+            string(course.getInstructorId());
+            string(course.getApprovalStatus());
+            string(course.getApprovedBy());
+            string(course.getDescription());
+            stringList(course.getStudents());
+            signed(course.getNextLessonNumber());
+            ArrayList<Lesson> lessons = course.getLessons();
+            if (lessons == null) {
+                varint(0);
+                return;
+            }
+            varint(lessons.size() + 1);
+            RecordOutput lessonOut = new RecordOutput(strings);
+            for (Lesson lesson : lessons) {
+                lessonOut.reset();
+                lessonOut.writeLesson(lesson);
+                // length-prefixed so readers can skip a lesson without decoding it
+                varint(lessonOut.size());
+                write(lessonOut.buf, 0, lessonOut.size());
+            }
+        }
+
+        void writeLesson(Lesson lesson) {
+            if (lesson == null) {
+                write(0);
+                return;
+            }
+            write(1);
+            string(lesson.getLessonId());
+            string(lesson.getTitle());
+            string(lesson.getContent());
+            string(lesson.getCourseId());
+            stringList(lesson.getOptionalResources());
+            Quiz quiz = lesson.getQuiz();
+            if (quiz == null) {
+                write(0);
+                return;
+            }
+            write(1);
+            string(quiz.getQuizId());
+            string(quiz.getLessonId());
+            string(quiz.getTitle());
+            string(quiz.getDescription());
+            signed(quiz.getPassingScore());
+            signed(quiz.getMaxAttempts());
+            signed(quiz.getNextQuestionNumber());
+            ArrayList<Question> questions = quiz.getQuestions();
+            varint(questions.size() + 1);
+            for (Question question : questions) {
+                string(question.getQuestionId());
+                string(question.getQuestionText());
+                stringList(question.getOptions());
+                string(question.getCorrectOption());
+                string(question.getExplanation());
+                signed(question.getPoints());
+            }
+        }
+    }
+
+    // ==================== RECORD DECODING ====================
+
+    /**
+     * Sequential reader over one record of a mapped snapshot
+     * Strings come either from a fully decoded table or are resolved lazily
+     */
+    static class RecordInput {
+        private final ByteBuffer buffer;
+        private int position;
+        private final String[] strings;
+        private final java.util.function.IntFunction<String> lazyStrings;
+        private final short version;
+
+        RecordInput(ByteBuffer buffer, int position, String[] strings, short version) {
+            this.buffer = buffer;
+            this.position = position;
+            this.strings = strings;
+            this.lazyStrings = null;
+            this.version = version;
+        }
+
+        RecordInput(ByteBuffer buffer, int position, java.util.function.IntFunction<String> lazyStrings,
+                short version) {
+            this.buffer = buffer;
+            this.position = position;
+            this.strings = null;
+            this.lazyStrings = lazyStrings;
+            this.version = version;
+        }
+
+        // id counters exist from version 2 on
+        boolean hasIdCounters() {
+            return version >= 2;
+        }
+
+        // quiz attempt answers exist from version 3 on
+        boolean hasQuizAnswers() {
+            return version >= 3;
+        }
+
+        int position() {
+            return position;
+        }
+
+        int readByte() {
+            return buffer.get(position++) & 0xFF;
+        }
+
+        int varint() {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = readByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        int signed() {
+            int value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long fixedLong() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        String string() {
+            int ref = varint();
+            if (ref == 0) {
+                return null;
+            }
+            return strings != null ? strings[ref - 1] : lazyStrings.apply(ref - 1);
+        }
+
+        // skips a string reference without resolving it
+        void skipString() {
+            varint();
+        }
+
+        ArrayList<String> stringList() {
+            int size = varint() - 1;
+            if (size < 0) {
+                return null;
+            }
+            ArrayList<String> values = new ArrayList<String>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(string());
+            }
+            return values;
+        }
+
+        User readUser() {
+            String role = string();
+            String userId = string();
+            String username = string();
+            String email = string();
+            String passwordHash = string();
+            String kind = role != null ? role.toLowerCase() : "";
+            User user;
+            switch (kind) {
+                case "student":
+                    Student student = new Student(userId, username, email, passwordHash);
+                    int enrolledSize = varint() - 1;
+                    HashMap<String, studentCourseInfo> enrolled = new HashMap<String, studentCourseInfo>();
+                    for (int i = 0; i < enrolledSize; i++) {
+                        String courseId = string();
+                        enrolled.put(courseId, readCourseInfo());
+                    }
+                    student.setEnrolledCourses(enrolled);
+                    user = student;
+                    break;
+                case "instructor":
+                    Instructor instructor = new Instructor(userId, username, email, passwordHash);
+                    ArrayList<String> created = stringList();
+                    instructor.setCreatedCourses(created != null ? created : new ArrayList<String>());
+                    user = instructor;
+                    break;
+                case "admin":
+                    user = new Admin(userId, username, email, passwordHash);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown user role in snapshot: " + role);
+            }
+            user.setRole(role);
+            return user;
+        }
+
+        studentCourseInfo readCourseInfo() {
+            if (readByte() == 0) {
+                return null;
+            }
+            String courseId = string();
+            ArrayList<String> progress = stringList();
+            Certificate certificate = readCertificate();
+            int attemptsSize = varint() - 1;
+            HashMap<String, ArrayList<Integer>> attempts = new HashMap<String, ArrayList<Integer>>();
+            for (int i = 0; i < attemptsSize; i++) {
+                String lessonId = string();
+                int scoresSize = varint() - 1;
+                ArrayList<Integer> scores = null;
+                if (scoresSize >= 0) {
+                    scores = new ArrayList<Integer>(scoresSize);
+                    for (int j = 0; j < scoresSize; j++) {
+                        scores.add(signed());
+                    }
+                }
+                attempts.put(lessonId, scores);
+            }
+            studentCourseInfo info = new studentCourseInfo(courseId, progress, certificate, attempts);
+            if (hasQuizAnswers()) {
+                int answersSize = varint() - 1;
+                for (int i = 0; i < answersSize; i++) {
+                    String lessonId = string();
+                    int sheetsSize = varint() - 1;
+                    ArrayList<HashMap<String, String>> sheets = null;
+                    if (sheetsSize >= 0) {
+                        sheets = new ArrayList<HashMap<String, String>>(sheetsSize);
+                        for (int j = 0; j < sheetsSize; j++) {
+                            int sheetSize = varint() - 1;
+                            HashMap<String, String> sheet = null;
+                            if (sheetSize >= 0) {
+                                sheet = new HashMap<String, String>(sheetSize * 2);
+                                for (int k = 0; k < sheetSize; k++) {
+                                    String questionId = string();
+                                    sheet.put(questionId, string());
+                                }
+                            }
+                            sheets.add(sheet);
+                        }
+                    }
+                    info.getQuizAnswers().put(lessonId, sheets);
+                }
+            }
+            return info;
+        }
+
+        Certificate readCertificate() {
+            if (readByte() == 0) {
+                return null;
+            }
+            String certificateId = string();
+            String studentId = string();
+            String studentName = string();
+            String courseId = string();
+            String courseTitle = string();
+            String instructorName = string();
+            Date issueDate = readByte() == 1 ? new Date(fixedLong()) : null;
+            double finalScore = Double.longBitsToDouble(fixedLong());
+            Certificate certificate = new Certificate(certificateId, studentId, studentName,
+                    courseId, courseTitle, instructorName, issueDate, finalScore);
+            certificate.setCertificateUrl(string());
+            return certificate;
+        }
+
+        Course readCourse() {
+            Course course = readCourseHeader();
+            int lessonCount = varint() - 1;
+            if (lessonCount < 0) {
+                course.setLessons(null);
+                return course;
+            }
+            ArrayList<Lesson> lessons = new ArrayList<Lesson>(lessonCount);
+            for (int i = 0; i < lessonCount; i++) {
+                varint(); // lesson length, only needed to skip
+                lessons.add(readLesson());
+            }
+            course.setLessons(lessons);
+            return course;
+        }
+
+        // READS EVERYTHING BEFORE THE LESSONS (LEAVES THE POSITION ON THE LESSON COUNT)
+        Course readCourseHeader() {
+            String courseId = string();
+            String title = string();
+            String instructorId = string();
+            String approvalStatus = string();
+            String approvedBy = string();
+            String description = string();
+            Course course = new Course(courseId, title, instructorId, description);
+            // new courses start as PENDING, only the other states need to be set
+            if (approvalStatus != null && !approvalStatus.equals(course.getApprovalStatus())) {
+                course.setApprovalStatus(approvalStatus);
+            }
+            course.setApprovedBy(approvedBy);
+            course.setStudents(stringList());
+            if (hasIdCounters()) {
+                course.setNextLessonNumber(signed());
+            }
+            return course;
+        }
+
+        Lesson readLesson() {
+            if (readByte() == 0) {
+                return null;
+            }
+            String lessonId = string();
+            String title = string();
+            String content = string();
+            String courseId = string();
+            Lesson lesson = new Lesson(lessonId, title, courseId, content);
+            lesson.setOptionalResources(stringList());
+            if (readByte() == 1) {
+                Quiz quiz = new Quiz();
+                quiz.setQuizId(string());
+                quiz.setLessonId(string());
+                quiz.setTitle(string());
+                quiz.setDescription(string());
+                quiz.setPassingScore(signed());
+                quiz.setMaxAttempts(signed());
+                if (hasIdCounters()) {
+                    quiz.setNextQuestionNumber(signed());
+                }
+                int questionCount = varint() - 1;
+                ArrayList<Question> questions = new ArrayList<Question>(Math.max(questionCount, 0));
+                for (int i = 0; i < questionCount; i++) {
+                    String questionId = string();
+                    String questionText = string();
+                    ArrayList<String> options = stringList();
+                    String correctOption = string();
+                    String explanation = string();
+                    int points = signed();
+                    questions.add(new Question(questionId, questionText, options, correctOption, explanation, points));
+                }
+                quiz.setQuestions(questions);
+                lesson.setQuiz(quiz);
+            }
+            return lesson;
+        }
+    }
+
+    /**
+     * JSON import / export tool
+     * Usage: java backend.databaseManager.BinarySnapshotCodec (import|export) (users|courses) source destination
+     * - import: JSON snapshot to binary snapshot
+     * - export: binary snapshot to JSON snapshot
+     */
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.out.println("Usage: BinarySnapshotCodec (import|export) (users|courses) source destination");
+            return;
+        }
+        Class<?> type = args[1].equals("users") ? User.class : Course.class;
+        ReadWrite db = new ReadWrite();
+        List<?> items = db.readFromFile(args[2], type);
+        db.writeToFile(args[3], items);
+        System.out.println(args[0] + ": " + items.size() + " " + args[1] + " written from "
+                + args[2] + " (" + db.getFileSize(args[2]) + " bytes) to "
+                + args[3] + " (" + db.getFileSize(args[3]) + " bytes)");
+    }
+}
@@ -0,0 +1,508 @@
+package backend.databaseManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import backend.models.ApprovalStatus;
+import backend.models.Course;
+
+/**
+ * Immutable, versioned view of the course catalog
+ *
+ * CourseDatabaseManager publishes a new snapshot on every change and readers
+ * grab the current one in O(1) without taking the manager lock. A snapshot
+ * never changes afterwards, so a long read (a report, a student's enrolled
+ * courses) sees one consistent version no matter what is written meanwhile.
+ *
+ * Structural sharing: courses are kept in a persistent hash trie keyed by
+ * id, and the catalog order in a persistent sequence. A new version only
+ * copies the O(log n) nodes on the path of the changed course, every other
+ * node and every Course object is shared with the previous version, so the
+ * catalog part of a write is O(log n) however large the catalog.
+ *
+ * Every version also keeps the ids of each approval status (catalog order,
+ * a course moves to the end of its new status when approved or rejected) in
+ * one persistent sequence per status, so the pending queue or the approved
+ * list is a page read in O(log n + page), however large the catalog.
+ *
+ * Reverse indexes instructorId -> course ids and studentId -> course ids
+ * (from Course.instructorId and Course.students) are kept the same way, so a
+ * dashboard only reads the courses of its own user. They follow every add,
+ * delete and roster change (enrollment) when the new version is published,
+ * copying the id list of each changed key (the courses of one user). On top
+ * of the O(log n) above, a write pays for the index keys it changes: one per
+ * enrolled student, none for an edit that leaves the roster alone. Adding or
+ * deleting a course, or replacing a roster whose origin is unknown, pays
+ * O(roster).
+ *
+ * Courses are only handed out as copies, the shared objects are never exposed.
+ */
+public final class CourseCatalogSnapshot {
+
+    private static final List<String> NO_KEYS = Collections.<String>emptyList();
+
+    private final long version;
+    // courseId -> slot, never modified once the snapshot is published
+    private final PersistentHashTrie<Slot> courses;
+    // ids in catalog (file) order
+    private final PersistentSequence order;
+    // ids of each approval status, courses with an unknown status are in none
+    private final EnumMap<ApprovalStatus, PersistentSequence> buckets;
+    // next sequence key, keys only grow so an added course goes to the end
+    private final long nextKey;
+    // reverse indexes: instructorId / studentId -> course ids
+    private final Index byInstructor;
+    private final Index byStudent;
+    // where undecoded courses come from, shared by every version
+    private final MappedCourseSnapshot mapped;
+    private final ConcurrentHashMap<String, Course> decoded;
+
+    private CourseCatalogSnapshot(long version, PersistentHashTrie<Slot> courses, PersistentSequence order,
+            EnumMap<ApprovalStatus, PersistentSequence> buckets, long nextKey, Index byInstructor,
+            Index byStudent, MappedCourseSnapshot mapped, ConcurrentHashMap<String, Course> decoded) {
+        this.version = version;
+        this.courses = courses;
+        this.order = order;
+        this.buckets = buckets;
+        this.nextKey = nextKey;
+        this.byInstructor = byInstructor;
+        this.byStudent = byStudent;
+        this.mapped = mapped;
+        this.decoded = decoded;
+    }
+
+    // A STORED COURSE (null WHILE STILL IN THE MAPPED FILE) AND ITS KEYS IN THE ORDER AND STATUS SEQUENCES
+    private static final class Slot {
+        private final Course course;
+        private final long orderKey;
+        private final long statusKey;
+
+        private Slot(Course course, long orderKey, long statusKey) {
+            this.course = course;
+            this.orderKey = orderKey;
+            this.statusKey = statusKey;
+        }
+    }
+
+    /**
+     * Builds the first version from the courses loaded by the manager
+     */
+    static CourseCatalogSnapshot of(long version, Map<String, Course> courses, MappedCourseSnapshot mapped,
+            ConcurrentHashMap<String, Course> decoded) {
+        HashMap<String, Slot> slots = new HashMap<String, Slot>(courses.size() * 2);
+        int count = courses.size();
+        long[] keys = new long[count];
+        String[] order = new String[count];
+        EnumMap<ApprovalStatus, ArrayList<String>> statusIds = new EnumMap<ApprovalStatus, ArrayList<String>>(
+                ApprovalStatus.class);
+        EnumMap<ApprovalStatus, ArrayList<Long>> statusKeys = new EnumMap<ApprovalStatus, ArrayList<Long>>(
+                ApprovalStatus.class);
+        for (ApprovalStatus status : ApprovalStatus.values()) {
+            statusIds.put(status, new ArrayList<String>());
+            statusKeys.put(status, new ArrayList<Long>());
+        }
+        HashMap<String, ArrayList<String>> instructorIds = new HashMap<String, ArrayList<String>>();
+        HashMap<String, ArrayList<String>> studentIds = new HashMap<String, ArrayList<String>>();
+        int i = 0;
+        for (Map.Entry<String, Course> entry : courses.entrySet()) {
+            String courseId = entry.getKey();
+            Course course = entry.getValue();
+            // the position in the catalog is the key in both sequences
+            slots.put(courseId, new Slot(course, i, i));
+            keys[i] = i;
+            order[i] = courseId;
+            ApprovalStatus status = statusOf(course, courseId, mapped);
+            if (status != null) {
+                statusIds.get(status).add(courseId);
+                statusKeys.get(status).add((long) i);
+            }
+            String instructorId = instructorOf(course, courseId, mapped);
+            if (instructorId != null) {
+                instructorIds.computeIfAbsent(instructorId, k -> new ArrayList<String>()).add(courseId);
+            }
+            for (String studentId : studentsOf(course, courseId, mapped)) {
+                studentIds.computeIfAbsent(studentId, k -> new ArrayList<String>()).add(courseId);
+            }
+            i++;
+        }
+        EnumMap<ApprovalStatus, PersistentSequence> buckets = new EnumMap<ApprovalStatus, PersistentSequence>(
+                ApprovalStatus.class);
+        for (ApprovalStatus status : ApprovalStatus.values()) {
+            ArrayList<Long> bucketKeys = statusKeys.get(status);
+            long[] sorted = new long[bucketKeys.size()];
+            for (int k = 0; k < sorted.length; k++) {
+                sorted[k] = bucketKeys.get(k);
+            }
+            buckets.put(status, PersistentSequence.of(sorted, statusIds.get(status).toArray(new String[0]),
+                    sorted.length));
+        }
+        return new CourseCatalogSnapshot(version, PersistentHashTrie.of(slots), PersistentSequence.of(keys, order, count),
+                buckets, count, Index.of(instructorIds), Index.of(studentIds), mapped, decoded);
+    }
+
+    /**
+     * @return A new version where the course is added or replaced (the object is kept, not copied)
+     */
+    CourseCatalogSnapshot with(long newVersion, Course course) {
+        String courseId = course.getCourseId();
+        Slot old = courses.get(courseId);
+        boolean added = old == null;
+        ApprovalStatus oldStatus = added ? null : statusOf(old.course, courseId, mapped);
+        ApprovalStatus newStatus = ApprovalStatus.of(course.getApprovalStatus());
+        String oldInstructor = added ? null : instructorOf(old.course, courseId, mapped);
+        long next = nextKey;
+        long orderKey = added ? next++ : old.orderKey;
+        long statusKey = added ? -1 : old.statusKey;
+        PersistentSequence newOrder = added ? order.add(orderKey, courseId) : order;
+        EnumMap<ApprovalStatus, PersistentSequence> newBuckets = buckets;
+        if (added || oldStatus != newStatus) {
+            newBuckets = new EnumMap<ApprovalStatus, PersistentSequence>(buckets);
+            if (oldStatus != null) {
+                newBuckets.put(oldStatus, buckets.get(oldStatus).remove(old.statusKey));
+            }
+            // the course goes to the end of its new status
+            statusKey = next++;
+            if (newStatus != null) {
+                newBuckets.put(newStatus, newBuckets.get(newStatus).add(statusKey, courseId));
+            }
+        }
+        Index newByInstructor = Objects.equals(oldInstructor, course.getInstructorId()) ? byInstructor
+                : byInstructor.update(keys(oldInstructor), keys(course.getInstructorId()), courseId);
+        Index newByStudent = added ? byStudent.update(NO_KEYS, studentsOf(course, courseId, mapped), courseId)
+                : rosterUpdate(old, course, courseId);
+        return new CourseCatalogSnapshot(newVersion, courses.put(courseId, new Slot(course, orderKey, statusKey)),
+                newOrder, newBuckets, next, newByInstructor, newByStudent, mapped, decoded);
+    }
+
+    /**
+     * @return A new version without the course
+     */
+    CourseCatalogSnapshot without(long newVersion, String courseId) {
+        Slot old = courses.get(courseId);
+        if (old == null) {
+            return new CourseCatalogSnapshot(newVersion, courses, order, buckets, nextKey, byInstructor, byStudent,
+                    mapped, decoded);
+        }
+        ApprovalStatus oldStatus = statusOf(old.course, courseId, mapped);
+        Index newByInstructor = byInstructor.update(keys(instructorOf(old.course, courseId, mapped)), NO_KEYS,
+                courseId);
+        Index newByStudent = byStudent.update(studentsOf(old.course, courseId, mapped), NO_KEYS, courseId);
+        EnumMap<ApprovalStatus, PersistentSequence> newBuckets = buckets;
+        if (oldStatus != null) {
+            newBuckets = new EnumMap<ApprovalStatus, PersistentSequence>(buckets);
+            newBuckets.put(oldStatus, buckets.get(oldStatus).remove(old.statusKey));
+        }
+        return new CourseCatalogSnapshot(newVersion, courses.remove(courseId), order.remove(old.orderKey),
+                newBuckets, nextKey, newByInstructor, newByStudent, mapped, decoded);
+    }
+
+    // STATUS OF A STORED COURSE, READ FROM THE MAPPED HEADER WHEN IT IS NOT DECODED YET
+    private static ApprovalStatus statusOf(Course course, String courseId, MappedCourseSnapshot mapped) {
+        if (course != null) {
+            return ApprovalStatus.of(course.getApprovalStatus());
+        }
+        CourseHeader header = mapped != null ? mapped.getHeader(courseId) : null;
+        return header != null ? ApprovalStatus.of(header.getApprovalStatus()) : null;
+    }
+
+    private static String instructorOf(Course course, String courseId, MappedCourseSnapshot mapped) {
+        if (course != null) {
+            return course.getInstructorId();
+        }
+        CourseHeader header = mapped != null ? mapped.getHeader(courseId) : null;
+        return header != null ? header.getInstructorId() : null;
+    }
+
+    // ROSTER OF A STORED COURSE, ONLY THE ROSTER IS DECODED WHEN IT IS STILL IN THE MAPPED FILE
+    private static Collection<String> studentsOf(Course course, String courseId, MappedCourseSnapshot mapped) {
+        Collection<String> students = course != null ? course.getStudents()
+                : mapped != null ? mapped.getStudents(courseId) : null;
+        return students != null ? students : Collections.<String>emptyList();
+    }
+
+    // MOVES THE COURSE IN THE STUDENT INDEX FROM THE OLD ROSTER TO THE NEW ONE
+    // an edit made on a copy of the stored course costs only the students it enrolled (none for an
+    // edit that left the roster alone), whatever the size of the roster. the rosters are compared
+    // through hash sets (O(roster), the new course brings its own membership index) only when the
+    // lineage is unknown: roster replaced, course read back from a file or still in the mapped file,
+    // or a copy taken before another enrollment of the course was published
+    private Index rosterUpdate(Slot old, Course course, String courseId) {
+        List<String> joined = course.getStudentsAddedSince(old.course);
+        if (joined != null) {
+            return byStudent.update(NO_KEYS, joined, courseId);
+        }
+        Set<String> newStudents = course.getStudentSet();
+        HashSet<String> oldStudents = new HashSet<String>(studentsOf(old.course, courseId, mapped));
+        if (oldStudents.size() == newStudents.size() && newStudents.containsAll(oldStudents)) {
+            return byStudent;
+        }
+        ArrayList<String> removed = new ArrayList<String>();
+        for (String studentId : oldStudents) {
+            if (!newStudents.contains(studentId)) {
+                removed.add(studentId);
+            }
+        }
+        ArrayList<String> added = new ArrayList<String>();
+        for (String studentId : course.getStudents()) {
+            if (!oldStudents.contains(studentId)) {
+                added.add(studentId);
+            }
+        }
+        return byStudent.update(removed, added, courseId);
+    }
+
+    private static Collection<String> keys(String key) {
+        return key != null ? Collections.singletonList(key) : Collections.<String>emptyList();
+    }
+
+    private static String[] append(String[] ids, String id) {
+        String[] result = Arrays.copyOf(ids, ids.length + 1);
+        result[ids.length] = id;
+        return result;
+    }
+
+    private static String[] remove(String[] ids, String id) {
+        int at = indexOf(ids, id);
+        if (at < 0) {
+            return ids;
+        }
+        String[] result = new String[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, at);
+        System.arraycopy(ids, at + 1, result, at, ids.length - at - 1);
+        return result;
+    }
+
+    private static int indexOf(String[] ids, String id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i].equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // HEADER OF A COURSE WITHOUT DECODING ITS LESSONS
+    private CourseHeader header(String courseId) {
+        Course course = courseOf(courseId);
+        if (course != null) {
+            return new CourseHeader(course);
+        }
+        return mapped != null ? mapped.getHeader(courseId) : null;
+    }
+
+    // THE SHARED OBJECT OF A COURSE (NEVER HANDED OUT), DECODED FROM THE MAPPED FILE ON FIRST USE
+    private Course stored(String courseId) {
+        Course course = courseOf(courseId);
+        if (course == null && mapped != null) {
+            course = decoded.computeIfAbsent(courseId, mapped::decodeCourse);
+        }
+        return course;
+    }
+
+    // THE COURSE OF THE SLOT, null IF UNKNOWN OR STILL IN THE MAPPED FILE
+    private Course courseOf(String courseId) {
+        Slot slot = courses.get(courseId);
+        return slot != null ? slot.course : null;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return order.size();
+    }
+
+    public boolean contains(String courseId) {
+        return courseId != null && courses.containsKey(courseId);
+    }
+
+    /**
+     * @return A copy of the course as of this version, or null
+     */
+    public Course getCourse(String courseId) {
+        if (!contains(courseId)) {
+            return null;
+        }
+        Course course = stored(courseId);
+        return course != null ? new Course(course) : null;
+    }
+
+    /**
+     * @return Header of the course as of this version (no lesson decoded), or null
+     */
+    public CourseHeader getHeader(String courseId) {
+        return contains(courseId) ? header(courseId) : null;
+    }
+
+    /**
+     * @return Ids of all courses in catalog order
+     */
+    public ArrayList<String> getCourseIds() {
+        return order.toList();
+    }
+
+    /**
+     * @return Headers of the courses with the given status (null for all), no lesson is copied
+     */
+    public ArrayList<CourseHeader> getHeaders(String approvalStatus) {
+        if (approvalStatus != null) {
+            ApprovalStatus status = ApprovalStatus.of(approvalStatus);
+            return status != null ? getHeaders(status, 0, Integer.MAX_VALUE) : new ArrayList<CourseHeader>();
+        }
+        ArrayList<CourseHeader> headers = new ArrayList<CourseHeader>(order.size());
+        for (String courseId : order.toList()) {
+            CourseHeader header = header(courseId);
+            if (header != null) {
+                headers.add(header);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * @return Number of courses with the given status
+     */
+    public int count(ApprovalStatus status) {
+        return buckets.get(status).size();
+    }
+
+    /**
+     * @return Ids of one page of the courses with the given status
+     */
+    public ArrayList<String> getCourseIds(ApprovalStatus status, int offset, int limit) {
+        int from = Math.max(offset, 0);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), Integer.MAX_VALUE);
+        return buckets.get(status).page(from, to);
+    }
+
+    /**
+     * @return Headers of one page of the courses with the given status, only that page is read
+     */
+    public ArrayList<CourseHeader> getHeaders(ApprovalStatus status, int offset, int limit) {
+        ArrayList<String> ids = getCourseIds(status, offset, limit);
+        ArrayList<CourseHeader> headers = new ArrayList<CourseHeader>(ids.size());
+        for (String courseId : ids) {
+            CourseHeader header = header(courseId);
+            if (header != null) {
+                headers.add(header);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * @return Copies of one page of the courses with the given status, only that page is decoded
+     */
+    public ArrayList<Course> getCourses(ApprovalStatus status, int offset, int limit) {
+        ArrayList<String> ids = getCourseIds(status, offset, limit);
+        ArrayList<Course> courses = new ArrayList<Course>(ids.size());
+        for (String courseId : ids) {
+            Course course = stored(courseId);
+            if (course != null) {
+                courses.add(new Course(course));
+            }
+        }
+        return courses;
+    }
+
+    /**
+     * @return Ids of the courses taught by the instructor (Course.instructorId), oldest first
+     */
+    public ArrayList<String> getCourseIdsOfInstructor(String instructorId) {
+        return new ArrayList<String>(Arrays.asList(byInstructor.get(instructorId)));
+    }
+
+    /**
+     * @return Ids of the courses whose roster holds the student, oldest first
+     */
+    public ArrayList<String> getCourseIdsOfStudent(String studentId) {
+        return new ArrayList<String>(Arrays.asList(byStudent.get(studentId)));
+    }
+
+    /**
+     * @return Copies of every course of this version in catalog order
+     */
+    public ArrayList<Course> getAllCourses() {
+        ArrayList<Course> courses = new ArrayList<Course>(order.size());
+        for (String courseId : order.toList()) {
+            Course course = stored(courseId);
+            if (course != null) {
+                courses.add(new Course(course));
+            }
+        }
+        return courses;
+    }
+
+    /**
+     * Persistent multimap key -> course ids on a hash trie: a change copies
+     * the trie path and the id list of each key it touches
+     */
+    private static final class Index {
+        private static final String[] NONE = new String[0];
+
+        private final PersistentHashTrie<String[]> ids;
+
+        private Index(PersistentHashTrie<String[]> ids) {
+            this.ids = ids;
+        }
+
+        static Index of(Map<String, ArrayList<String>> ids) {
+            HashMap<String, String[]> arrays = new HashMap<String, String[]>(ids.size() * 2);
+            for (Map.Entry<String, ArrayList<String>> entry : ids.entrySet()) {
+                arrays.put(entry.getKey(), entry.getValue().toArray(NONE));
+            }
+            return new Index(PersistentHashTrie.of(arrays));
+        }
+
+        String[] get(String key) {
+            if (key == null) {
+                return NONE;
+            }
+            String[] courseIds = ids.get(key);
+            return courseIds != null ? courseIds : NONE;
+        }
+
+        /**
+         * Costs one trie path and id list per key passed, the callers pass only the keys that changed
+         *
+         * @return A new index where the course is taken off the removed keys and put under the added
+         *         ones, or this one if both are empty
+         */
+        Index update(Collection<String> removed, Collection<String> added, String courseId) {
+            if (removed.isEmpty() && added.isEmpty()) {
+                return this;
+            }
+            PersistentHashTrie<String[]> newIds = ids;
+            for (String key : removed) {
+                String[] courseIds = key != null ? newIds.get(key) : null;
+                if (courseIds == null) {
+                    continue;
+                }
+                courseIds = remove(courseIds, courseId);
+                newIds = courseIds.length == 0 ? newIds.remove(key) : newIds.put(key, courseIds);
+            }
+            for (String key : added) {
+                if (key != null) {
+                    String[] courseIds = newIds.get(key);
+                    if (courseIds == null) {
+                        newIds = newIds.put(key, new String[] { courseId });
+                    } else if (indexOf(courseIds, courseId) < 0) {
+                        newIds = newIds.put(key, append(courseIds, courseId));
+                    }
+                }
+            }
+            return new Index(newIds);
+        }
+    }
+}
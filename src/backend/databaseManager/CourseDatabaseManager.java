@@ -2,42 +2,240 @@ package backend.databaseManager;
 
 import backend.models.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.JsonObject;
 
 
 public class CourseDatabaseManager {
-    private ArrayList<Course> courses;
+    // IDENTITY MAP OF ALL COURSES KEYED BY courseId (INSERTION ORDER = FILE ORDER)
+    // the stored objects are never handed out directly, callers always receive a copy
+    // so editing a returned course can not alter the data held here
+    private LinkedHashMap<String, Course> courses;
     private ReadWrite db;
     private final String COURSES_FILE = "data/DatabaseJSONFiles/courses.json";
+    // SNAPSHOT ACTUALLY USED (A BINARY courses.bin NEXT TO THE JSON FILE WINS)
+    // a binary snapshot is rewritten as a new generation (courses.<n>.bin), never over the mapped file
+    private String coursesFile;
+    private long generation;
+    // MAPPED BINARY SNAPSHOT, COURSES STAY IN IT (null IN THE MAP) UNTIL FIRST REQUESTED
+    private MappedCourseSnapshot mapped;
+    // MUTATIONS ARE APPENDED TO THE JOURNAL AND FOLDED INTO THE SNAPSHOT PERIODICALLY
+    // single changes are coalesced and journaled in the background by the scheduler.
+    // the cursor follows the records other app instances append to the shared journal
+    private Journal journal;
+    private Journal.Cursor cursor;
+    private PersistenceScheduler scheduler;
+    private int journalRecords;
+    private static final String STORE = "courses";
+    private static final int COMPACTION_THRESHOLD = 200;
+    private static final String ID_PREFIX = "C";
+    // VERSION OF THE STORE, MOVES ON EVERY ADD / UPDATE / DELETE
+    // and the log of changed ids ordered by version (deleted ids included), every id is only
+    // kept under the version it last changed at. the log is trimmed at compaction, versions
+    // up to changeLogFloor are no longer known
+    private long version;
+    private TreeMap<Long, String> changeLog = new TreeMap<Long, String>();
+    private HashMap<String, Long> changedAt = new HashMap<String, Long>();
+    private long changeLogFloor;
+    private static final int CHANGE_LOG_LIMIT = 1024;
+    // IMMUTABLE VERSION OF THE CATALOG PUBLISHED ON EVERY CHANGE (READERS TAKE IT WITHOUT THE LOCK)
+    // and the courses decoded from the mapped snapshot, shared by the map and every published version
+    // of that mapping (a reload maps another file and starts a new one)
+    private volatile CourseCatalogSnapshot catalog;
+    private ConcurrentHashMap<String, Course> decoded = new ConcurrentHashMap<String, Course>();
+
+    // SINGLE PROCESS-WIDE INSTANCE SHARED BY EVERY SERVICE AND SCREEN
+    // (ONE COPY OF THE COURSES IN MEMORY, WRITES ARE SEEN BY EVERYONE AT ONCE)
+    private static CourseDatabaseManager instance;
+
+    // RETURNS THE SHARED INSTANCE, THE FILE IS LOADED ON THE FIRST CALL ONLY
+    public static synchronized CourseDatabaseManager getInstance() {
+        if (instance == null) {
+            instance = new CourseDatabaseManager();
+        }
+        return instance;
+    }
 
     // CLASS CONSTRUCTOR and INITIALIZER (READS THE FILE OR CREATES A NEW ONE IF NOT
-    // EXIST)
-    public CourseDatabaseManager() {
-        db = new ReadWrite();
-        courses = db.readFromFile(COURSES_FILE, Course.class);
+    // EXIST), USE getInstance()
+    private CourseDatabaseManager() {
+        db = ReadWrite.getInstance();
+        courses = new LinkedHashMap<String, Course>();
+        scheduler = PersistenceScheduler.getInstance();
+        scheduler.register(STORE, this::flushDirty);
+        journal = Journal.getInstance();
+        cursor = journal.cursor(STORE, this::replay, this::reload);
+        // the snapshot and the records after its checkpoint are read under one journal lock,
+        // so no other instance can compact in between
+        FileLocks.Handle lock = journal.lockShared();
+        try {
+            loadSnapshot();
+            catalog = CourseCatalogSnapshot.of(version, courses, mapped, decoded);
+            journal.catchUp(cursor);
+        } finally {
+            lock.close();
+        }
+        // new ids continue after the highest one in use
+        IdAllocator.getInstance().seed(ID_PREFIX, courses.keySet());
+    }
+
+    // READS THE NEWEST SNAPSHOT INTO THE IDENTITY MAP (CALLER HOLDS THE JOURNAL LOCK)
+    private void loadSnapshot() {
+        coursesFile = db.resolveSnapshot(COURSES_FILE);
+        if (openMapped()) {
+            // only the course headers were read, every course is decoded on first access
+            for (String courseId : mapped.getCourseIds()) {
+                courses.put(courseId, null);
+            }
+        } else if (db.forEachInFile(snapshotFile(), Course.class, this::load) < 0) {
+            // courses are streamed straight into the identity map one at a time
+            // the live file is broken, readFromFile falls back to the previous generation
+            courses.clear();
+            ArrayList<Course> loaded = db.readFromFile(snapshotFile(), Course.class);
+            for (int i = 0; i < loaded.size(); i++) {
+                load(loaded.get(i));
+            }
+        }
+    }
+
+    // APPLIES ONE JOURNAL RECORD (ON LOAD, OR APPENDED BY ANOTHER APP INSTANCE)
+    // a course changed here and not journaled yet keeps its local state, it is journaled later and wins
+    private void replay(JsonObject record) {
+        String id = record.get("id").getAsString();
+        journalRecords++;
+        if (scheduler.isPending(STORE, id)) {
+            return;
+        }
+        if (Journal.OP_DELETE.equals(record.get("op").getAsString())) {
+            courses.remove(id);
+        } else {
+            Course course = db.fromJsonTree(record.get("data"), Course.class);
+            if (course == null) {
+                return;
+            }
+            courses.put(id, course);
+        }
+        touch(id);
+    }
+
+    // ANOTHER APP INSTANCE COMPACTED THE COURSES: RE-READS THE NEWEST SNAPSHOT GENERATION
+    // (CALLED BY THE JOURNAL WHILE THE LOCKS ARE HELD), COURSES NOT JOURNALED YET ARE KEPT.
+    // the change log can not tell what changed, every version before the reload is dropped from it
+    private void reload() {
+        HashMap<String, Course> pending = new HashMap<String, Course>();
+        for (String courseId : scheduler.pendingIds(STORE)) {
+            pending.put(courseId, stored(courseId));
+        }
+        courses = new LinkedHashMap<String, Course>();
+        mapped = null;
+        decoded = new ConcurrentHashMap<String, Course>();
+        generation = 0;
+        loadSnapshot();
+        for (Map.Entry<String, Course> entry : pending.entrySet()) {
+            if (entry.getValue() != null) {
+                courses.put(entry.getKey(), entry.getValue());
+            } else {
+                courses.remove(entry.getKey());
+            }
+        }
+        journalRecords = 0;
+        version++;
+        changeLog.clear();
+        changedAt.clear();
+        changeLogFloor = version;
+        catalog = CourseCatalogSnapshot.of(version, courses, mapped, decoded);
+        IdAllocator.getInstance().seed(ID_PREFIX, courses.keySet());
+    }
+
+    // LATEST CATALOG VERSION, AFTER REPLAYING WHAT OTHER APP INSTANCES JOURNALED
+    // (the journal is looked at once per refresh interval at most, the lock is only taken then)
+    private CourseCatalogSnapshot current() {
+        if (journal.hasNews(cursor)) {
+            refresh();
+        }
+        return catalog;
+    }
+
+    private synchronized void refresh() {
+        FileLocks.Handle lock = journal.lockShared();
+        try {
+            journal.catchUp(cursor);
+        } finally {
+            lock.close();
+        }
+    }
+
+    // USED BY UnitOfWork TO JOURNAL COURSE RECORDS WITH THIS STORE'S CURSOR
+    Journal.Cursor journalCursor() {
+        return cursor;
+    }
+
+    // MAPS THE NEWEST READABLE GENERATION OF THE BINARY SNAPSHOT, FALSE MEANS THE EAGER LOAD IS USED
+    private boolean openMapped() {
+        if (!BinarySnapshotCodec.isBinary(coursesFile)) {
+            return false;
+        }
+        long[] generations = db.findGenerations(coursesFile);
+        if (generations.length > 0) {
+            // eager load of the newest one if none can be mapped
+            generation = generations[0];
+        }
+        for (long candidate : generations) {
+            String file = ReadWrite.generationFile(coursesFile, candidate);
+            try {
+                mapped = MappedCourseSnapshot.open(new File(file));
+                generation = candidate;
+                return true;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not map " + file + ": " + e.getMessage());
+            }
+        }
+        mapped = null;
+        return false;
+    }
+
+    // CURRENT GENERATION OF THE SNAPSHOT FILE
+    private String snapshotFile() {
+        return ReadWrite.generationFile(coursesFile, generation);
+    }
+
+    // RETURNS THE STORED COURSE, DECODING IT FROM THE MAPPED SNAPSHOT ON FIRST ACCESS
+    private Course stored(String courseId) {
+        Course course = courses.get(courseId);
+        if (course == null && mapped != null && courses.containsKey(courseId)) {
+            course = decoded.computeIfAbsent(courseId, mapped::decodeCourse);
+            courses.put(courseId, course);
+        }
+        return course;
+    }
+
+    // PUTS A COURSE READ FROM THE SNAPSHOT IN THE IDENTITY MAP
+    private void load(Course course) {
+        if (course != null && course.getCourseId() != null) {
+            courses.put(course.getCourseId(), course);
+        }
     }
 
     // METHOD TO SEARCH AND RETURN THE COURSE IF EXIST IN THE DB
+    // read from the published catalog version, so it never waits for a writer
+    // (only for the replay of what another app instance journaled, once per refresh interval)
     public Course getCourse(String courseId) {
         try {
             if (courseId == null) {
-
                 return null;
             }
-            if (this.courses.size() == 0) {
-                return null; // No users in the database
-            }
-            for (int i = 0; i < this.courses.size(); i++) {
-                Course tempCourse = this.courses.get(i);
-                if (tempCourse.getCourseId().equals(courseId)) {
-                    // the line written under here is to make an new instance of courses array
-                    // as editing the object passed as a reference may alter the data in the array
-                    // so to prevent that we make a new instance of the array
-                    this.courses = db.readFromFile(COURSES_FILE, Course.class);
-                    return tempCourse;
-                }
-            }
-            return null;
+            // a copy is returned as editing the object passed as a reference
+            // would otherwise alter the data held in the identity map
+            return current().getCourse(courseId);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -46,16 +244,16 @@ public class CourseDatabaseManager {
 
     // METHOD TO ADD A COURSE and RETURN THE GENERATED ID (USED AT COURSE CREATION
     // FUNCTIONALITY ONLY)
-    public String addCourse(Course newCourse) {
+    public synchronized String addCourse(Course newCourse) {
         try {
             if (newCourse == null) {
                 return "";
             }
             String id = generateId();
             newCourse.setCourseId(id);
-            Course course = newCourse;
-            this.courses.add(course);
-            SaveCoursesToFile();
+            Course course = new Course(newCourse);
+            this.courses.put(id, course);
+            markDirty(course.getCourseId());
             return id;
         } catch (Exception e) {
             e.printStackTrace();
@@ -64,23 +262,13 @@ public class CourseDatabaseManager {
     }
 
     // USED TO UPDATE THE COURSE DETAILS (LIKE LESSONS ADDED OR STUDENTS ENROLLED)
-    public void update(Course updatedCourse) {
+    public synchronized void update(Course updatedCourse) {
         try {
             if (updatedCourse != null) {
-                boolean found = false;
-                String id = updatedCourse.getCourseId();
-                for (int i = 0; i < courses.size(); i++) {
-                    if (courses.get(i).getCourseId().equals(id)) {
-                        found = true;
-                        // courses.remove(i);
-                        // courses.add(updatedCourse);
-                        courses.set(i, updatedCourse);
-                        SaveCoursesToFile();
-                    }
-                }
-                if (!found) {
-                    courses.add(updatedCourse);
-                }
+                Course course = new Course(updatedCourse);
+                // replaces the value in place so the file order is kept
+                courses.put(course.getCourseId(), course);
+                markDirty(course.getCourseId());
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -88,29 +276,171 @@ public class CourseDatabaseManager {
     }
 
     // METHOD TO SAVE COURSES TO FILE
-    public void SaveCoursesToFile() {
+    // every change is journaled by the scheduler (PersistenceScheduler.flush() waits for it),
+    // the snapshot is only rewritten once the journal has grown past the compaction threshold
+    public synchronized void SaveCoursesToFile() {
+        if (journalRecords >= COMPACTION_THRESHOLD || journal.holdsBack(cursor)) {
+            compact();
+        }
+    }
+
+    // WRITES THE FULL SNAPSHOT AND MOVES THE COURSES CHECKPOINT OF THE JOURNAL
+    // the exclusive journal lock is held from the replay of the other instances' records until
+    // the checkpoint is written, so no record appended meanwhile can be left out of the snapshot.
+    // the checkpoint only moves once the new snapshot is on disk, the journal is the only
+    // durable copy of the changes made since the previous snapshot
+    public synchronized void compact() {
+        FileLocks.Handle lock = journal.lockExclusive();
         try {
-            db.writeToFile(COURSES_FILE, courses);
-            // updates the courses array
-            this.courses = db.readFromFile(COURSES_FILE, Course.class);
+            if (journal.catchUp(cursor) < 0) {
+                System.out.println("Courses NOT saved successfully to file, the journal is kept.");
+                return;
+            }
+            // a binary snapshot goes to a new generation: the mapped file can not be renamed
+            // over on Windows, and catalog versions still reading it keep a valid mapping
+            long next = generation;
+            if (BinarySnapshotCodec.isBinary(coursesFile)) {
+                long[] generations = db.findGenerations(coursesFile);
+                next = Math.max(generation, generations.length > 0 ? generations[0] : 0) + 1;
+            }
+            if (!db.writeToFile(ReadWrite.generationFile(coursesFile, next), resolveAll())) {
+                System.out.println("Courses NOT saved successfully to file, the journal is kept.");
+                return;
+            }
+            journal.checkpoint(cursor);
+            journalRecords = 0;
+            trimChangeLog();
+            if (next != generation) {
+                generation = next;
+                // the previous generation stays as the fallback
+                db.deleteOldGenerations(coursesFile, 2);
+            }
+            // every course is resident now, the old mapping is no longer needed
+            mapped = null;
+            decoded.clear();
+            catalog = CourseCatalogSnapshot.of(version, courses, null, decoded);
             System.out.println("Courses saved successfully to file.");
         } catch (Exception e) {
             e.printStackTrace();
             System.out.println("Courses NOT saved successfully to file.");
+        } finally {
+            lock.close();
+        }
+    }
+
+    // DECODES EVERY COURSE STILL IN THE MAPPED SNAPSHOT (IN FILE ORDER)
+    private ArrayList<Course> resolveAll() {
+        ArrayList<Course> all = new ArrayList<Course>(courses.size());
+        for (String courseId : new ArrayList<String>(courses.keySet())) {
+            all.add(stored(courseId));
+        }
+        return all;
+    }
+
+    // THE CHANGE IS IN MEMORY NOW, THE SCHEDULER JOURNALS IT WITH THE NEXT FLUSH
+    private void markDirty(String courseId) {
+        touch(courseId);
+        scheduler.markDirty(STORE, courseId);
+    }
+
+    // JOURNALS THE CURRENT STATE OF THE GIVEN COURSES AS ONE GROUP (CALLED BY THE SCHEDULER)
+    // returns the number of records written, -1 if the append failed
+    private synchronized int flushDirty(ArrayList<String> courseIds) {
+        ArrayList<JsonObject> records = new ArrayList<JsonObject>(courseIds.size());
+        for (String courseId : courseIds) {
+            if (courses.containsKey(courseId)) {
+                records.add(Journal.put(STORE, courseId, db.toJsonTree(stored(courseId))));
+            } else {
+                records.add(Journal.delete(STORE, courseId));
+            }
+        }
+        // the records of other instances are replayed first (the courses flushed here are skipped)
+        if (!journal.append(records, cursor)) {
+            return -1;
+        }
+        journalRecords += records.size();
+        return records.size();
+    }
+
+    // HOOKS USED BY UnitOfWork: THE RECORDS ARE JOURNALED BY THE UNIT OF WORK FIRST,
+    // THE CHANGE IS ONLY APPLIED IN MEMORY ONCE THAT APPEND IS DURABLE (CALLER HOLDS THE LOCK)
+    JsonObject stagedPutRecord(Course course) {
+        return Journal.put(STORE, course.getCourseId(), db.toJsonTree(course));
+    }
+
+    JsonObject stagedDeleteRecord(String courseId) {
+        return Journal.delete(STORE, courseId);
+    }
+
+    void applyPut(Course course) {
+        courses.put(course.getCourseId(), new Course(course));
+        touch(course.getCourseId());
+        journalRecords++;
+    }
+
+    void applyDelete(String courseId) {
+        courses.remove(courseId);
+        touch(courseId);
+        journalRecords++;
+    }
+
+    // MOVES THE VERSION, RECORDS WHICH COURSE CHANGED AND PUBLISHES THE NEW CATALOG VERSION
+    // (only the shard of the changed course is copied, the rest is shared with the previous version)
+    private void touch(String courseId) {
+        version++;
+        Long previous = changedAt.put(courseId, version);
+        if (previous != null) {
+            changeLog.remove(previous);
+        }
+        changeLog.put(version, courseId);
+        Course course = courses.get(courseId);
+        if (course != null) {
+            catalog = catalog.with(version, course);
+        } else {
+            catalog = catalog.without(version, courseId);
+        }
+    }
+
+    // CURRENT CATALOG VERSION IN O(1): AN IMMUTABLE, CONSISTENT VIEW FOR LONG READS
+    // (reports, enrolled course lists) that never blocks writers nor is changed by them
+    public CourseCatalogSnapshot getSnapshot() {
+        return current();
+    }
+
+    // CURRENT VERSION OF THE COURSES STORE (COMPARE WITH A SAVED VALUE TO DETECT CHANGES)
+    public synchronized long getVersion() {
+        current();
+        return version;
+    }
+
+    // IDS OF THE COURSES ADDED, UPDATED OR DELETED AFTER THE GIVEN VERSION (IN VERSION ORDER)
+    // only the tail of the change log is read. null if that version was trimmed from the log,
+    // the caller has to rebuild from the catalog then
+    public synchronized ArrayList<String> getCourseIdsChangedSince(long sinceVersion) {
+        current();
+        if (sinceVersion < changeLogFloor) {
+            return null;
+        }
+        return new ArrayList<String>(changeLog.tailMap(sinceVersion, false).values());
+    }
+
+    // DROPS THE OLDEST ENTRIES OF THE CHANGE LOG ONCE IT HOLDS MORE THAN THE LIMIT
+    private void trimChangeLog() {
+        while (changeLog.size() > CHANGE_LOG_LIMIT) {
+            Map.Entry<Long, String> oldest = changeLog.pollFirstEntry();
+            changedAt.remove(oldest.getValue());
+            changeLogFloor = oldest.getKey();
         }
     }
 
     // METHOD TO DELETE A COURSE FROM THE DB
-    public void deleteCourse(String courseId) {
+    public synchronized void deleteCourse(String courseId) {
         try {
-            for (int i = 0; i < courses.size(); i++) {
-                Course course = courses.get(i);
-                if (course.getCourseId().equals(courseId)) {
-                    courses.remove(i);
-                    SaveCoursesToFile();
-                    System.out.println("Course deleted successfully.");
-                    break;
-                }
+            if (courseId != null && courses.containsKey(courseId)) {
+                // the entry may still be an undecoded placeholder (null) of the mapped snapshot
+                courses.remove(courseId);
+                markDirty(courseId);
+                System.out.println("Course deleted successfully.");
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -118,19 +448,87 @@ public class CourseDatabaseManager {
     }
 
     // METHOD TO RETURN ALL COURSES JSON ARRAY (FOR VALIDATION PURPOSES)
+    // copies of one consistent catalog version, taken without the lock
     public ArrayList<Course> getAllCourses() {
-        ArrayList<Course> tempCourses = this.courses;
-        this.courses = db.readFromFile(COURSES_FILE, Course.class);
-        return tempCourses;
+        return current().getAllCourses();
+    }
+
+    // HEADERS OF ALL COURSES (NO LESSON IS DECODED, USED BY COURSE LISTS)
+    public ArrayList<CourseHeader> getCourseHeaders() {
+        return getCourseHeaders(null);
+    }
+
+    // HEADERS OF THE COURSES WITH THE GIVEN APPROVAL STATUS (null FOR ALL)
+    public ArrayList<CourseHeader> getCourseHeaders(String approvalStatus) {
+        return current().getHeaders(approvalStatus);
+    }
+
+    // TABLE ROWS OF THE GIVEN COURSES (ONE CATALOG VERSION + INSTRUCTOR NAMES, NO LESSON OR USER IS READ)
+    public ArrayList<CourseSummary> getCourseSummaries(Collection<String> courseIds) {
+        return summarize(current(), courseIds);
+    }
+
+    // TABLE ROWS OF ONE PAGE OF THE COURSES WITH THE GIVEN STATUS
+    public ArrayList<CourseSummary> getCourseSummaries(ApprovalStatus status, int offset, int limit) {
+        CourseCatalogSnapshot current = current();
+        return summarize(current, current.getCourseIds(status, offset, limit));
+    }
+
+    // JOINS THE HEADERS OF ONE CATALOG VERSION WITH THE USERNAME INDEX OF THE USERS STORE
+    private ArrayList<CourseSummary> summarize(CourseCatalogSnapshot current, Collection<String> courseIds) {
+        UsersDatabaseManager Udb = UsersDatabaseManager.getInstance();
+        ArrayList<CourseSummary> summaries = new ArrayList<CourseSummary>(courseIds.size());
+        for (String courseId : courseIds) {
+            CourseHeader header = current.getHeader(courseId);
+            if (header != null) {
+                summaries.add(new CourseSummary(header, Udb.getUsername(header.getInstructorId())));
+            }
+        }
+        return summaries;
+    }
+
+    // IDS OF THE COURSES OF AN INSTRUCTOR (REVERSE INDEX, NO COURSE IS SCANNED)
+    public ArrayList<String> getCourseIdsOfInstructor(String instructorId) {
+        return current().getCourseIdsOfInstructor(instructorId);
     }
 
-    // METHOD TO GENERATE A UNIQUE ID
+    // IDS OF THE COURSES A STUDENT IS ENROLLED IN (REVERSE INDEX OF THE ROSTERS)
+    public ArrayList<String> getCourseIdsOfStudent(String studentId) {
+        return current().getCourseIdsOfStudent(studentId);
+    }
+
+    // NUMBER OF COURSES WITH THE GIVEN STATUS (KEPT PER STATUS, NOTHING IS SCANNED)
+    public int countCourses(ApprovalStatus status) {
+        return current().count(status);
+    }
+
+    // ONE PAGE OF THE IDS WITH THE GIVEN STATUS
+    public ArrayList<String> getCourseIds(ApprovalStatus status, int offset, int limit) {
+        return current().getCourseIds(status, offset, limit);
+    }
+
+    // ONE PAGE OF THE HEADERS WITH THE GIVEN STATUS (COST DEPENDS ON THE PAGE, NOT THE CATALOG)
+    public ArrayList<CourseHeader> getCourseHeaders(ApprovalStatus status, int offset, int limit) {
+        return current().getHeaders(status, offset, limit);
+    }
+
+    // ONE PAGE OF THE COURSES WITH THE GIVEN STATUS, ONLY THAT PAGE IS COPIED
+    public ArrayList<Course> getCourses(ApprovalStatus status, int offset, int limit) {
+        return current().getCourses(status, offset, limit);
+    }
+
+    // ALL COURSES WITH THE GIVEN STATUS, READ FROM THE STATUS INDEX OF ONE CATALOG VERSION
+    private ArrayList<Course> coursesWithStatus(ApprovalStatus status) {
+        return current().getCourses(status, 0, Integer.MAX_VALUE);
+    }
+
+    // METHOD TO GENERATE A UNIQUE ID (NEVER REUSED, NO LOCK OR FILE READ NEEDED)
     public String generateId() {
-        return "C" + String.format("%d", this.courses.size() + 1);
+        return IdAllocator.getInstance().nextId(ID_PREFIX);
     }
 
     // APPROVE A COURSE
-    public void approveCourse(String courseId,String adminId) {
+    public synchronized void approveCourse(String courseId,String adminId) {
         Course course = getCourse(courseId);
         if (course == null) {
             System.out.println("approveCourse: Course not found.");
@@ -139,6 +537,7 @@ public class CourseDatabaseManager {
         try {
             course.setApprovalStatus("APPROVED");
             course.setApprovedBy(adminId);
+            // moves the course from the pending to the approved index of the next catalog version
             update(course);
             SaveCoursesToFile();
             System.out.println("Course ID:" + course.getCourseId() + " approved successfully" +
@@ -149,7 +548,7 @@ public class CourseDatabaseManager {
     }
 
     // REJECT A COURSE
-    public void rejectCourse(String courseId,String adminId) {
+    public synchronized void rejectCourse(String courseId,String adminId) {
         Course course = getCourse(courseId);
         if (course == null) {
             System.out.println("rejectCourse : Course not found.");
@@ -172,14 +571,7 @@ public class CourseDatabaseManager {
     public ArrayList<Course> getPendingCourses() {
         ArrayList<Course> pendingList = new ArrayList<Course>();
         try {
-            for (int i = 0; i < courses.size(); i++) {
-                Course course = courses.get(i);
-                if (course.getApprovalStatus().equals("PENDING")) {
-                    // the line under is written like that to avoid passing the object as a
-                    // reference
-                    pendingList.add(getCourse(course.getCourseId()));
-                }
-            }
+            pendingList = coursesWithStatus(ApprovalStatus.PENDING);
             System.out.println("returning pending list of courses , size: " + pendingList.size());
             return pendingList;
         } catch (Exception e) {
@@ -193,14 +585,7 @@ public class CourseDatabaseManager {
     public ArrayList<Course> getApprovedCourses() {
         ArrayList<Course> approvedList = new ArrayList<Course>();
         try {
-            for (int i = 0; i < courses.size(); i++) {
-                Course course = courses.get(i);
-                if (course.getApprovalStatus().equals("APPROVED")) {
-                    // the line under is written like that to avoid passing the object as a
-                    // reference
-                    approvedList.add(getCourse(course.getCourseId()));
-                }
-            }
+            approvedList = coursesWithStatus(ApprovalStatus.APPROVED);
             System.out.println("returning approved list of courses , size: " + approvedList.size());
             return approvedList;
         } catch (Exception e) {
@@ -214,14 +599,7 @@ public class CourseDatabaseManager {
     public ArrayList<Course> getRejectedCourses() {
         ArrayList<Course> rejectedList = new ArrayList<Course>();
         try {
-            for (int i = 0; i < courses.size(); i++) {
-                Course course = courses.get(i);
-                if (course.getApprovalStatus().equals("REJECTED")) {
-                    // the line under is written like that to avoid passing the object as a
-                    // reference
-                    rejectedList.add(getCourse(course.getCourseId()));
-                }
-            }
+            rejectedList = coursesWithStatus(ApprovalStatus.REJECTED);
             System.out.println("returning rejected list of courses , size: " + rejectedList.size());
             return rejectedList;
         } catch (Exception e) {
@@ -233,7 +611,7 @@ public class CourseDatabaseManager {
     // For testing purposes only
     public static void main(String[] args) {
         // test for all methods here
-        CourseDatabaseManager coursesDB = new CourseDatabaseManager();
+        CourseDatabaseManager coursesDB = CourseDatabaseManager.getInstance();
         Course newCourse = new Course("C1", "I1", "Description 11");
         coursesDB.addCourse(newCourse);
         Course course = coursesDB.getCourse("C1");
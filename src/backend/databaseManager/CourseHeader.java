@@ -0,0 +1,66 @@
+package backend.databaseManager;
+
+import backend.models.Course;
+
+/**
+ * Lightweight view of a course holding only what course lists need
+ * (no lessons, quizzes or roster), so listing the catalog never has to
+ * decode lesson bodies
+ */
+public class CourseHeader {
+    private final String courseId;
+    private final String title;
+    private final String instructorId;
+    private final String description;
+    private final String approvalStatus;
+    private final int lessonCount;
+    private final int studentCount;
+
+    public CourseHeader(String courseId, String title, String instructorId, String description,
+            String approvalStatus, int lessonCount, int studentCount) {
+        this.courseId = courseId;
+        this.title = title;
+        this.instructorId = instructorId;
+        this.description = description;
+        this.approvalStatus = approvalStatus;
+        this.lessonCount = lessonCount;
+        this.studentCount = studentCount;
+    }
+
+    // BUILDS THE HEADER OF AN ALREADY DECODED COURSE
+    public CourseHeader(Course course) {
+        this(course.getCourseId(), course.getTitle(), course.getInstructorId(), course.getDescription(),
+                course.getApprovalStatus(),
+                course.getLessons() != null ? course.getLessons().size() : 0,
+                course.getStudents() != null ? course.getStudents().size() : 0);
+    }
+
+    // standard getters
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getInstructorId() {
+        return instructorId;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getApprovalStatus() {
+        return approvalStatus;
+    }
+
+    public int getLessonCount() {
+        return lessonCount;
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+}
@@ -0,0 +1,62 @@
+package backend.databaseManager;
+
+/**
+ * One row of a course table: the course header joined with the name of its
+ * instructor. Built from the catalog headers and the username index of the
+ * users store, so no lesson, quiz or User object is read or copied.
+ */
+public class CourseSummary {
+    private final String courseId;
+    private final String title;
+    private final String instructorId;
+    private final String instructorName;
+    private final String description;
+    private final String approvalStatus;
+    private final int lessonCount;
+    private final int studentCount;
+
+    public CourseSummary(CourseHeader header, String instructorName) {
+        this.courseId = header.getCourseId();
+        this.title = header.getTitle();
+        this.instructorId = header.getInstructorId();
+        this.instructorName = instructorName;
+        this.description = header.getDescription();
+        this.approvalStatus = header.getApprovalStatus();
+        this.lessonCount = header.getLessonCount();
+        this.studentCount = header.getStudentCount();
+    }
+
+    // standard getters
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getInstructorId() {
+        return instructorId;
+    }
+
+    // name of the instructor, null if the instructor account does not exist
+    public String getInstructorName() {
+        return instructorName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getApprovalStatus() {
+        return approvalStatus;
+    }
+
+    public int getLessonCount() {
+        return lessonCount;
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+}
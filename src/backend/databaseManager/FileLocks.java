@@ -0,0 +1,149 @@
+package backend.databaseManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Process-wide and cross-process locking of the database files
+ *
+ * Every data file gets one ReentrantReadWriteLock shared by the whole JVM
+ * (keyed by canonical path, so every ReadWrite / Journal instance agrees) and
+ * an OS lock (FileChannel.lock) on a "<file>.lock" sidecar for the other app
+ * instances working on the same data directory:
+ * - readers share both locks, readers never block each other
+ * - a writer holds both exclusively
+ *
+ * The OS lock is per process, not per thread, so within a JVM it is taken by
+ * the first reader and released by the last one.
+ *
+ * Usage:
+ *   FileLocks.Handle lock = FileLocks.read(filename);
+ *   try { ... } finally { lock.close(); }
+ */
+public final class FileLocks {
+
+    public static final String LOCK_SUFFIX = ".lock";
+
+    private static final ConcurrentHashMap<String, Entry> ENTRIES = new ConcurrentHashMap<String, Entry>();
+
+    private FileLocks() {
+    }
+
+    /**
+     * Lock held until closed
+     */
+    public interface Handle extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static class Entry {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final File lockFile;
+        FileChannel channel;
+        FileLock osLock;
+        int osReaders;
+
+        Entry(File lockFile) {
+            this.lockFile = lockFile;
+        }
+
+        // OPENS THE SIDECAR ONCE, IT STAYS OPEN FOR THE LIFE OF THE PROCESS (CALLER HOLDS THE MONITOR)
+        FileChannel channel() throws IOException {
+            if (channel == null || !channel.isOpen()) {
+                File parentDir = lockFile.getParentFile();
+                if (parentDir != null && !parentDir.exists()) {
+                    parentDir.mkdirs();
+                }
+                channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            return channel;
+        }
+    }
+
+    /**
+     * Takes the shared lock of a file (other readers may hold it too)
+     */
+    public static Handle read(String filename) {
+        final Entry entry = entry(filename);
+        entry.lock.readLock().lock();
+        // a thread holding the write lock already holds the OS lock exclusively
+        if (entry.lock.isWriteLockedByCurrentThread()) {
+            return () -> entry.lock.readLock().unlock();
+        }
+        synchronized (entry) {
+            if (entry.osReaders++ == 0) {
+                entry.osLock = lockOs(entry, true);
+            }
+        }
+        return () -> {
+            synchronized (entry) {
+                if (--entry.osReaders == 0) {
+                    releaseOs(entry);
+                }
+            }
+            entry.lock.readLock().unlock();
+        };
+    }
+
+    /**
+     * Takes the exclusive lock of a file
+     */
+    public static Handle write(String filename) {
+        final Entry entry = entry(filename);
+        entry.lock.writeLock().lock();
+        // a thread already holding it (reentrant write) also holds the OS lock
+        if (entry.lock.getWriteHoldCount() > 1) {
+            return () -> entry.lock.writeLock().unlock();
+        }
+        synchronized (entry) {
+            entry.osLock = lockOs(entry, false);
+        }
+        return () -> {
+            synchronized (entry) {
+                releaseOs(entry);
+            }
+            entry.lock.writeLock().unlock();
+        };
+    }
+
+    private static Entry entry(String filename) {
+        File file = new File(filename);
+        String key;
+        try {
+            key = file.getCanonicalPath();
+        } catch (IOException e) {
+            key = file.getAbsolutePath();
+        }
+        return ENTRIES.computeIfAbsent(key, path -> new Entry(new File(path + LOCK_SUFFIX)));
+    }
+
+    // THE JVM LOCK STILL PROTECTS THIS PROCESS WHEN THE OS LOCK CAN NOT BE TAKEN
+    private static FileLock lockOs(Entry entry, boolean shared) {
+        try {
+            return entry.channel().lock(0, Long.MAX_VALUE, shared);
+        } catch (IOException | OverlappingFileLockException e) {
+            System.err.println("Could not lock " + entry.lockFile.getPath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void releaseOs(Entry entry) {
+        if (entry.osLock == null) {
+            return;
+        }
+        try {
+            entry.osLock.release();
+        } catch (IOException e) {
+            System.err.println("Could not unlock " + entry.lockFile.getPath() + ": " + e.getMessage());
+        }
+        entry.osLock = null;
+    }
+}
@@ -0,0 +1,173 @@
+package backend.databaseManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic id allocator for users ("U") and courses ("C")
+ *
+ * - ids are never reused, not even after a delete
+ * - the fast path is a lock-free counter increment
+ * - numbers are reserved in blocks: only when a block is used up the new
+ *   upper bound is written to ids.properties (fsync + atomic rename), so a
+ *   restart continues after the last reserved block and never hands out a
+ *   number twice (the unused rest of a block is skipped)
+ * - reservations lock ids.properties, so app instances sharing the data
+ *   directory always own disjoint blocks
+ * - a counter is also raised to the highest number found in the data, so
+ *   files written before the allocator existed are handled
+ */
+public class IdAllocator {
+
+    public static final String IDS_FILE = "data/DatabaseJSONFiles/ids.properties";
+    private static final int BLOCK_SIZE = 100;
+
+    private static IdAllocator instance;
+
+    private final String filename;
+    private final Properties reserved;
+    // prefix -> next number to hand out / block owned by this process {first, last}
+    private final ConcurrentHashMap<String, AtomicLong> next = new ConcurrentHashMap<String, AtomicLong>();
+    private final ConcurrentHashMap<String, long[]> ranges = new ConcurrentHashMap<String, long[]>();
+
+    IdAllocator(String filename) {
+        this.filename = filename;
+        this.reserved = new Properties();
+    }
+
+    public static synchronized IdAllocator getInstance() {
+        if (instance == null) {
+            instance = new IdAllocator(IDS_FILE);
+        }
+        return instance;
+    }
+
+    /**
+     * Makes sure the counter of a prefix is past a number already in use
+     */
+    public void seed(String prefix, long highestInUse) {
+        AtomicLong counter = counter(prefix);
+        long current;
+        while ((current = counter.get()) <= highestInUse) {
+            if (counter.compareAndSet(current, highestInUse + 1)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Seeds the counter of a prefix from existing ids ("U12" counts as 12)
+     */
+    public void seed(String prefix, Iterable<String> ids) {
+        long highest = 0;
+        for (String id : ids) {
+            if (id != null && id.startsWith(prefix)) {
+                try {
+                    highest = Math.max(highest, Long.parseLong(id.substring(prefix.length())));
+                } catch (NumberFormatException e) {
+                    // not generated by the allocator, can not collide with its ids
+                }
+            }
+        }
+        seed(prefix, highest);
+    }
+
+    /**
+     * @return A new id made of the prefix and a number never handed out before
+     */
+    public String nextId(String prefix) {
+        AtomicLong counter = counter(prefix);
+        while (true) {
+            long number = counter.getAndIncrement();
+            long[] range = ranges.get(prefix);
+            if (number >= range[0] && number <= range[1]) {
+                return prefix + number;
+            }
+            // outside the block this process owns, reserve a new one and try again
+            reserve(prefix, number);
+        }
+    }
+
+    // COUNTER OF A PREFIX, NO BLOCK IS OWNED UNTIL THE FIRST RESERVATION
+    private AtomicLong counter(String prefix) {
+        AtomicLong counter = next.get(prefix);
+        if (counter == null) {
+            synchronized (this) {
+                counter = next.get(prefix);
+                if (counter == null) {
+                    ranges.put(prefix, new long[] { 1, 0 });
+                    counter = new AtomicLong(1);
+                    next.put(prefix, counter);
+                }
+            }
+        }
+        return counter;
+    }
+
+    // SLOW PATH: RESERVES THE NEXT FREE BLOCK FROM THE SHARED FILE
+    // the file is locked so app instances sharing the data directory get disjoint blocks
+    private synchronized void reserve(String prefix, long number) {
+        long[] range = ranges.get(prefix);
+        if (number >= range[0] && number <= range[1]) {
+            return; // another thread already reserved it
+        }
+        FileLocks.Handle lock = FileLocks.write(filename);
+        try {
+            load();
+            long reservedOnDisk = Long.parseLong(reserved.getProperty(prefix, "0"));
+            long start = Math.max(number, reservedOnDisk + 1);
+            long end = start + BLOCK_SIZE - 1;
+            reserved.setProperty(prefix, Long.toString(end));
+            persist();
+            ranges.put(prefix, new long[] { start, end });
+            // numbers before the block belong to other instances, skip them
+            AtomicLong counter = next.get(prefix);
+            long current;
+            while ((current = counter.get()) < start) {
+                if (counter.compareAndSet(current, start)) {
+                    break;
+                }
+            }
+        } finally {
+            lock.close();
+        }
+    }
+
+    // READS THE RESERVED BOUNDS (CALLER HOLDS THE FILE LOCK)
+    private void load() {
+        File file = new File(filename);
+        if (!file.exists()) {
+            return;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            reserved.load(reader);
+        } catch (IOException e) {
+            System.err.println("Error reading " + filename + ": " + e.getMessage());
+        }
+    }
+
+    // WRITES THE RESERVED BOUNDS THROUGH A TEMP FILE (CALLER HOLDS THE FILE LOCK)
+    private void persist() {
+        File file = new File(filename);
+        File parentDir = file.getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        File temp = new File(filename + ReadWrite.TEMP_SUFFIX);
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp, false)) {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                reserved.store(writer, "Highest reserved id number per prefix");
+                writer.flush();
+                out.getChannel().force(true);
+            }
+            ReadWrite.replaceAtomically(temp, file, false);
+        } catch (IOException e) {
+            System.err.println("Error writing " + filename + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package backend.databaseManager;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+//lib imports
+import com.google.gson.*;
+
+/**
+ * Append-only write-ahead journal shared by the users and courses databases
+ *
+ * Every mutation is written as an entity-level record instead of rewriting
+ * the whole JSON snapshot, so the cost of a write scales with the changed
+ * entity and not with the size of the database.
+ *
+ * Format:
+ * - One line per append, holding a JSON array of records
+ * - A line is either applied completely or (if torn by a crash) ignored,
+ *   so every append is an atomic group. An append after a torn line starts
+ *   on a new line, so only the torn group is lost
+ * - Record: {"store": "users", "op": "PUT", "id": "U1", "data": {...}}
+ *
+ * Records are idempotent (PUT replaces the whole entity, DELETE removes it),
+ * which makes replaying a journal on top of a newer snapshot harmless.
+ *
+ * ATTEMPT is a delta record (one quiz attempt of a student, a few dozen bytes
+ * instead of the whole student). It carries the attempt number, so replaying
+ * it on a snapshot that already holds that attempt changes nothing.
+ *
+ * SCORES is a delta record written by a quiz regrade: the new scores of the
+ * attempts of one lesson. It holds absolute values, so it is idempotent too.
+ * CERTIFICATE issues one certificate and is skipped if the entity already
+ * holds a certificate for that course.
+ *
+ * Several app instances can share the data directory. Every store follows
+ * the journal with a Cursor, the offset up to which it has applied records:
+ * - before a read the store checks whether the file changed (length and
+ *   modification time, at most once per db.refreshIntervalMs, default 100 ms)
+ *   and replays what other instances appended
+ * - an append first replays what the writing stores have not seen yet, under
+ *   the exclusive journal lock, then writes its group
+ * - a compaction holds the exclusive lock while it replays, writes the
+ *   snapshot and moves the store's checkpoint
+ * Two instances editing the same entity: the edit journaled last wins.
+ *
+ * Offsets are logical, they keep growing across compactions. The first line
+ * may be a header {"base": offset of the next line, "checkpoints": {store: offset}},
+ * a checkpoint being the offset up to which the store's snapshot holds the
+ * records. Only records every store has folded into its snapshot are dropped
+ * from the file (the base moves), so a compaction never moves another store's
+ * cursor. A store whose cursor is behind its checkpoint (another instance
+ * compacted it) re-reads its snapshot and continues from the checkpoint.
+ */
+public class Journal {
+
+    public static final String JOURNAL_FILE = "data/DatabaseJSONFiles/journal.log";
+
+    public static final String OP_PUT = "PUT";
+    public static final String OP_DELETE = "DELETE";
+    public static final String OP_ATTEMPT = "ATTEMPT";
+    public static final String OP_SCORES = "SCORES";
+    public static final String OP_CERTIFICATE = "CERTIFICATE";
+
+    private static final byte[] NEWLINE = { '\n' };
+    private static final long UNSET = Long.MIN_VALUE;
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.MILLISECONDS
+            .toNanos(Long.getLong("db.refreshIntervalMs", 100));
+    // the records after the oldest checkpoint stay in the file, past this size the store holding
+    // it back (one that never reaches its compaction threshold) is compacted anyway
+    private static final long MAX_UNFOLDED_BYTES = 8L * 1024 * 1024;
+
+    private static Journal instance;
+
+    private final String filename;
+
+    public Journal() {
+        this(JOURNAL_FILE);
+    }
+
+    public Journal(String filename) {
+        this.filename = filename;
+    }
+
+    /**
+     * @return The journal shared by both database managers and every unit of work
+     */
+    public static synchronized Journal getInstance() {
+        if (instance == null) {
+            instance = new Journal();
+        }
+        return instance;
+    }
+
+    /**
+     * Position of one store in the journal
+     * Owned by the store's manager and only moved while it holds its own lock
+     */
+    public static final class Cursor {
+        private final String store;
+        private final Consumer<JsonObject> replay;
+        private final Runnable reload;
+        private long position = UNSET;
+        // file length and modification time when the store last caught up
+        private volatile long seenLength = -1;
+        private volatile long seenModified;
+        private volatile long nextCheck;
+
+        private Cursor(String store, Consumer<JsonObject> replay, Runnable reload) {
+            this.store = store;
+            this.replay = replay;
+            this.reload = reload;
+        }
+    }
+
+    // HEADER LINE OF THE FILE AS READ UNDER THE FILE LOCK (AN EMPTY ONE IF THE FILE HAS NONE)
+    private static final class Header {
+        private final long base;
+        private final int length;
+        private final HashMap<String, Long> checkpoints;
+
+        private Header(long base, int length, HashMap<String, Long> checkpoints) {
+            this.base = base;
+            this.length = length;
+            this.checkpoints = checkpoints;
+        }
+
+        // checkpoint of a store, the base if it never compacted
+        private long checkpointOf(String store) {
+            Long checkpoint = checkpoints.get(store);
+            return checkpoint != null ? checkpoint : base;
+        }
+    }
+
+    // VISITS ONE GROUP AND THE LOGICAL OFFSET IT STARTS AT
+    private interface GroupVisitor {
+        void visit(long offset, JsonArray group);
+    }
+
+    /**
+     * Creates the cursor of a store, placed at the store's checkpoint by the
+     * first catchUp (load the snapshot and call catchUp under one journal lock)
+     *
+     * @param store Store name ("users" or "courses")
+     * @param replay Applies one record of the store written by another instance
+     * @param reload Re-reads the store's snapshot (another instance compacted it)
+     */
+    public Cursor cursor(String store, Consumer<JsonObject> replay, Runnable reload) {
+        return new Cursor(store, replay, reload);
+    }
+
+    /**
+     * Shared lock of the journal, held by a store while it catches up
+     */
+    public FileLocks.Handle lockShared() {
+        return FileLocks.read(filename);
+    }
+
+    /**
+     * Exclusive lock of the journal: no other thread or instance can append or
+     * compact until it is closed (reentrant, append takes it too)
+     */
+    public FileLocks.Handle lockExclusive() {
+        return FileLocks.write(filename);
+    }
+
+    /**
+     * Cheap check before a read, no lock and no read of the file
+     * Looks at most once per refresh interval
+     *
+     * @return true if the journal changed since the store last caught up
+     */
+    public boolean hasNews(Cursor cursor) {
+        long now = System.nanoTime();
+        if (now - cursor.nextCheck < 0) {
+            return false;
+        }
+        cursor.nextCheck = now + REFRESH_INTERVAL_NANOS;
+        File file = new File(filename);
+        return file.length() != cursor.seenLength || file.lastModified() != cursor.seenModified;
+    }
+
+    /**
+     * @return true if the journal grew large and the store is the one keeping
+     *         the oldest records in it (it never compacted past them)
+     */
+    public boolean holdsBack(Cursor cursor) {
+        File file = new File(filename);
+        if (file.length() <= MAX_UNFOLDED_BYTES) {
+            return false;
+        }
+        FileLocks.Handle lock = lockShared();
+        try {
+            Header header = readHeader(file);
+            return header.checkpointOf(cursor.store) <= header.base;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Replays the records of the cursor's store it has not applied yet
+     * (caller holds a journal lock and the store's own lock)
+     * - the first call only places the cursor at the store's checkpoint
+     * - if another instance compacted the store past the cursor, the store
+     *   reloads its snapshot and continues from the new checkpoint
+     *
+     * @return Number of records replayed, -1 if the journal could not be read
+     */
+    public int catchUp(Cursor cursor) {
+        File file = new File(filename);
+        long fileLength = file.length();
+        long modified = file.lastModified();
+        if (cursor.position != UNSET && fileLength == cursor.seenLength && modified == cursor.seenModified) {
+            return 0;
+        }
+        try {
+            Header header = readHeader(file);
+            long checkpoint = header.checkpointOf(cursor.store);
+            if (cursor.position == UNSET) {
+                cursor.position = checkpoint;
+            } else if (cursor.position < checkpoint) {
+                cursor.reload.run();
+                cursor.position = checkpoint;
+            }
+            final int[] count = new int[1];
+            long from = cursor.position;
+            cursor.position = readGroups(file, header, from, Long.MAX_VALUE, cursor.store, (offset, group) -> {
+                for (JsonElement element : group) {
+                    JsonObject record = element.getAsJsonObject();
+                    if (cursor.store.equals(record.get("store").getAsString())) {
+                        cursor.replay.accept(record);
+                        count[0]++;
+                    }
+                }
+            });
+            cursor.seenLength = fileLength;
+            cursor.seenModified = modified;
+            return count[0];
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading journal " + filename + ": " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Builds a record that replaces (or inserts) a whole entity
+     */
+    public static JsonObject put(String store, String id, JsonElement data) {
+        JsonObject record = new JsonObject();
+        record.addProperty("store", store);
+        record.addProperty("op", OP_PUT);
+        record.addProperty("id", id);
+        record.add("data", data);
+        return record;
+    }
+
+    /**
+     * Builds a record that removes an entity
+     */
+    public static JsonObject delete(String store, String id) {
+        JsonObject record = new JsonObject();
+        record.addProperty("store", store);
+        record.addProperty("op", OP_DELETE);
+        record.addProperty("id", id);
+        return record;
+    }
+
+    /**
+     * Builds a delta record that adds one quiz attempt to an entity
+     */
+    public static JsonObject attempt(String store, String id, JsonObject data) {
+        JsonObject record = new JsonObject();
+        record.addProperty("store", store);
+        record.addProperty("op", OP_ATTEMPT);
+        record.addProperty("id", id);
+        record.add("data", data);
+        return record;
+    }
+
+    /**
+     * Builds a delta record that replaces the quiz scores of an entity
+     */
+    public static JsonObject scores(String store, String id, JsonObject data) {
+        JsonObject record = new JsonObject();
+        record.addProperty("store", store);
+        record.addProperty("op", OP_SCORES);
+        record.addProperty("id", id);
+        record.add("data", data);
+        return record;
+    }
+
+    /**
+     * Builds a delta record that issues a certificate to an entity
+     */
+    public static JsonObject certificate(String store, String id, JsonObject data) {
+        JsonObject record = new JsonObject();
+        record.addProperty("store", store);
+        record.addProperty("op", OP_CERTIFICATE);
+        record.addProperty("id", id);
+        record.add("data", data);
+        return record;
+    }
+
+    /**
+     * Appends the records as one atomic group and forces them to disk
+     * The given stores first replay what other instances appended before it,
+     * then their cursors move past the group (pass the cursor of every store
+     * the group writes, its lock must be held)
+     *
+     * @param records Records to append, in the order they must be replayed
+     * @param cursors Cursors of the stores written by the group
+     * @return true if the group is durable
+     */
+    public boolean append(List<JsonObject> records, Cursor... cursors) {
+        if (records == null || records.isEmpty()) {
+            return true;
+        }
+        JsonArray group = new JsonArray();
+        for (JsonObject record : records) {
+            group.add(record);
+        }
+        byte[] line = (group.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+
+        // exclusive across threads and processes, so appends never interleave
+        FileLocks.Handle lock = lockExclusive();
+        try {
+            for (Cursor cursor : cursors) {
+                if (catchUp(cursor) < 0) {
+                    return false;
+                }
+            }
+            File file = new File(filename);
+            File parentDir = file.getParentFile();
+            if (parentDir != null && !parentDir.exists()) {
+                parentDir.mkdirs();
+            }
+            Header header = readHeader(file);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long end = channel.size();
+                // a crash during an earlier append can leave a last line without its newline,
+                // the group must start on a line of its own or both would be unreadable
+                if (end > 0 && !endsWithNewline(channel, end)) {
+                    channel.write(ByteBuffer.wrap(NEWLINE), end);
+                    end++;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    end += channel.write(buffer, end);
+                }
+                channel.force(false);
+                long logicalEnd = header.base + end - header.length;
+                for (Cursor cursor : cursors) {
+                    cursor.position = logicalEnd;
+                    cursor.seenLength = end;
+                    cursor.seenModified = file.lastModified();
+                }
+                return true;
+            }
+        } catch (IOException e) {
+            System.err.println("Error appending to journal " + filename + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Marks every record the store has applied as part of its snapshot
+     * Called by a compaction once the snapshot is written, while it still holds
+     * the exclusive journal lock it took before catching up (and the store's lock).
+     * Records that every store has folded into its snapshot are dropped from the file.
+     *
+     * @param cursor Cursor of the compacted store
+     * @return false if the journal could not be rewritten (the records are kept,
+     *         replaying them on the new snapshot is harmless)
+     */
+    public boolean checkpoint(Cursor cursor) {
+        FileLocks.Handle lock = lockExclusive();
+        try {
+            File file = new File(filename);
+            Header header = readHeader(file);
+            HashMap<String, Long> moved = new HashMap<String, Long>(header.checkpoints);
+            moved.put(cursor.store, cursor.position);
+            long cut = cursor.position;
+            for (long checkpoint : moved.values()) {
+                cut = Math.min(cut, checkpoint);
+            }
+            // a store that never compacted needs its records from the first one on
+            final long[] cutAt = { Math.max(cut, header.base) };
+            readGroups(file, header, header.base, cutAt[0], null, (offset, group) -> {
+                for (JsonElement element : group) {
+                    if (!moved.containsKey(element.getAsJsonObject().get("store").getAsString())) {
+                        cutAt[0] = Math.min(cutAt[0], offset);
+                    }
+                }
+            });
+            JsonObject line = new JsonObject();
+            line.addProperty("base", cutAt[0]);
+            JsonObject marks = new JsonObject();
+            for (Map.Entry<String, Long> entry : moved.entrySet()) {
+                marks.addProperty(entry.getKey(), entry.getValue());
+            }
+            line.add("checkpoints", marks);
+            byte[] headerLine = (line.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+
+            // rewritten through a temp file so a crash never loses the records being kept
+            File temp = new File(filename + ReadWrite.TEMP_SUFFIX);
+            long keepFrom = cutAt[0] - header.base + header.length;
+            try (FileOutputStream out = new FileOutputStream(temp, false)) {
+                out.write(headerLine);
+                if (file.exists()) {
+                    try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long position = Math.min(keepFrom, size);
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out.getChannel());
+                        }
+                    }
+                }
+                out.getChannel().force(true);
+            }
+            ReadWrite.replaceAtomically(temp, file, false);
+            cursor.seenLength = file.length();
+            cursor.seenModified = file.lastModified();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error compacting journal " + filename + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            lock.close();
+        }
+    }
+
+    // TRUE IF THE LAST BYTE OF THE FILE IS A NEWLINE (CALLER HOLDS THE FILE LOCK)
+    private static boolean endsWithNewline(FileChannel channel, long size) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, size - 1) == 1 && last.get(0) == NEWLINE[0];
+    }
+
+    // READS THE HEADER LINE IF THE FILE STARTS WITH ONE (CALLER HOLDS THE FILE LOCK)
+    // a journal without header (written before checkpoints existed) starts at offset 0
+    private Header readHeader(File file) throws IOException {
+        HashMap<String, Long> checkpoints = new HashMap<String, Long>();
+        if (!file.exists() || file.length() == 0) {
+            return new Header(0, 0, checkpoints);
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            if (in.read() != '{') {
+                return new Header(0, 0, checkpoints);
+            }
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            line.write('{');
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                line.write(b);
+            }
+            if (b != '\n') {
+                return new Header(0, 0, checkpoints);
+            }
+            JsonObject header = JsonParser.parseString(line.toString("UTF-8")).getAsJsonObject();
+            for (Map.Entry<String, JsonElement> entry : header.getAsJsonObject("checkpoints").entrySet()) {
+                checkpoints.put(entry.getKey(), entry.getValue().getAsLong());
+            }
+            return new Header(header.get("base").getAsLong(), line.size() + 1, checkpoints);
+        }
+    }
+
+    // READS THE COMPLETE GROUPS BETWEEN TWO LOGICAL OFFSETS (CALLER HOLDS THE FILE LOCK)
+    // lines that can not be parsed are skipped, and lines without a record of the given store
+    // (null for all) are not parsed. returns the offset after the last complete line read,
+    // a torn last line is left for the next append to close
+    private long readGroups(File file, Header header, long from, long to, String store, GroupVisitor visitor)
+            throws IOException {
+        String storeProperty = store != null ? "\"store\":\"" + store + "\"" : null;
+        long base = header.base;
+        long offset = Math.max(from, base);
+        if (!file.exists()) {
+            return offset;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long physical = offset - base + header.length;
+            if (physical >= channel.size()) {
+                // nothing new, or the file was replaced by a shorter one: continue from its end
+                return Math.min(offset, base + Math.max(channel.size() - header.length, 0));
+            }
+            channel.position(physical);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while (offset < to && (b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                long start = offset;
+                offset += line.size() + 1;
+                String text = line.toString("UTF-8");
+                line.reset();
+                if (text.trim().isEmpty() || (storeProperty != null && !text.contains(storeProperty))) {
+                    continue;
+                }
+                try {
+                    visitor.visit(start, JsonParser.parseString(text).getAsJsonArray());
+                } catch (JsonParseException | IllegalStateException e) {
+                    System.err.println("Skipping incomplete journal line at offset " + start + " in " + filename);
+                }
+            }
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package backend.databaseManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import backend.models.Course;
+import backend.models.Lesson;
+
+/**
+ * Read-only, memory-mapped view of a binary courses snapshot (courses.bin)
+ *
+ * Opening the snapshot only reads the course headers (id, title, instructor,
+ * status, description and counts). Lesson content, quizzes, resources and the
+ * student roster stay in the mapped file until a course or a lesson is
+ * actually requested, and strings are decoded on first use only.
+ *
+ * Per course the byte offset of its record is known from the snapshot, the
+ * offsets of its lessons are computed the first time one of them is read.
+ */
+public class MappedCourseSnapshot {
+
+    private final ByteBuffer buffer;
+    private final BinarySnapshotCodec.Header header;
+    // decoded strings by table index, null until first used
+    private final String[] strings;
+    // courseId -> header and offsets of the course (snapshot order)
+    private final LinkedHashMap<String, Entry> entries;
+
+    private static class Entry {
+        CourseHeader header;
+        int recordStart; // position of the course record
+        int lessonsStart; // position of the first lesson length prefix
+        int[] lessonOffsets; // computed on first lesson access
+    }
+
+    private MappedCourseSnapshot(ByteBuffer buffer, BinarySnapshotCodec.Header header) {
+        this.buffer = buffer;
+        this.header = header;
+        this.strings = new String[header.stringCount];
+        this.entries = new LinkedHashMap<String, Entry>();
+    }
+
+    /**
+     * Maps a binary courses snapshot and indexes its course headers
+     *
+     * @param file Binary courses snapshot
+     * @return The mapped snapshot
+     * @throws IOException if the file is not a binary courses snapshot
+     */
+    public static MappedCourseSnapshot open(File file) throws IOException {
+        // a writer replaces the file by a rename, the mapping keeps the generation read here
+        ByteBuffer buffer;
+        FileLocks.Handle lock = FileLocks.read(file.getPath());
+        try {
+            buffer = BinarySnapshotCodec.map(file);
+        } finally {
+            lock.close();
+        }
+        BinarySnapshotCodec.Header header = BinarySnapshotCodec.Header.read(buffer);
+        if (header.recordCount > 0 && header.kind != BinarySnapshotCodec.KIND_COURSES) {
+            throw new IOException("Snapshot " + file.getPath() + " does not contain courses");
+        }
+        MappedCourseSnapshot snapshot = new MappedCourseSnapshot(buffer, header);
+        for (int i = 0; i < header.recordCount; i++) {
+            snapshot.indexRecord(header.recordStart(i));
+        }
+        return snapshot;
+    }
+
+    // READS THE HEADER FIELDS OF ONE RECORD, SKIPPING THE ROSTER WITHOUT DECODING IT
+    private void indexRecord(int position) {
+        BinarySnapshotCodec.RecordInput in = input(position);
+        String courseId = in.string();
+        String title = in.string();
+        String instructorId = in.string();
+        String approvalStatus = in.string();
+        in.skipString(); // approvedBy
+        String description = in.string();
+        int studentCount = Math.max(in.varint() - 1, 0);
+        for (int i = 0; i < studentCount; i++) {
+            in.skipString();
+        }
+        if (in.hasIdCounters()) {
+            in.signed(); // nextLessonNumber, only needed when the course is decoded
+        }
+        int lessonCount = Math.max(in.varint() - 1, 0);
+
+        Entry entry = new Entry();
+        entry.header = new CourseHeader(courseId, title, instructorId, description,
+                approvalStatus, lessonCount, studentCount);
+        entry.recordStart = position;
+        entry.lessonsStart = in.position();
+        entries.put(courseId, entry);
+    }
+
+    private BinarySnapshotCodec.RecordInput input(int position) {
+        return new BinarySnapshotCodec.RecordInput(buffer, position, this::string, header.version);
+    }
+
+    // DECODES A STRING OF THE TABLE ON FIRST USE
+    private synchronized String string(int index) {
+        String value = strings[index];
+        if (value == null) {
+            value = header.decodeString(index);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * @return Ids of all courses in snapshot order
+     */
+    public ArrayList<String> getCourseIds() {
+        return new ArrayList<String>(entries.keySet());
+    }
+
+    public boolean contains(String courseId) {
+        return entries.containsKey(courseId);
+    }
+
+    /**
+     * @return Header of the course, or null if it is not in the snapshot
+     */
+    public CourseHeader getHeader(String courseId) {
+        Entry entry = entries.get(courseId);
+        return entry != null ? entry.header : null;
+    }
+
+    /**
+     * @return Headers of all courses in snapshot order, no lesson is decoded
+     */
+    public ArrayList<CourseHeader> getHeaders() {
+        ArrayList<CourseHeader> headers = new ArrayList<CourseHeader>(entries.size());
+        for (Entry entry : entries.values()) {
+            headers.add(entry.header);
+        }
+        return headers;
+    }
+
+    /**
+     * Decodes only the roster of a course (the lessons are not touched)
+     *
+     * @return The enrolled student ids, or null if the course is not in the snapshot
+     */
+    public ArrayList<String> getStudents(String courseId) {
+        Entry entry = entries.get(courseId);
+        if (entry == null) {
+            return null;
+        }
+        BinarySnapshotCodec.RecordInput in = input(entry.recordStart);
+        for (int i = 0; i < 6; i++) {
+            in.skipString(); // courseId, title, instructorId, approvalStatus, approvedBy, description
+        }
+        return in.stringList();
+    }
+
+    /**
+     * Fully decodes one course (lessons, quizzes and roster included)
+     *
+     * @return A new Course object, or null if it is not in the snapshot
+     */
+    public Course decodeCourse(String courseId) {
+        Entry entry = entries.get(courseId);
+        return entry != null ? input(entry.recordStart).readCourse() : null;
+    }
+
+    /**
+     * Decodes a single lesson without decoding the rest of its course
+     *
+     * @return The lesson, or null if the course or index does not exist
+     */
+    public Lesson decodeLesson(String courseId, int lessonIndex) {
+        Entry entry = entries.get(courseId);
+        if (entry == null || lessonIndex < 0 || lessonIndex >= entry.header.getLessonCount()) {
+            return null;
+        }
+        int[] offsets = lessonOffsets(entry);
+        return input(offsets[lessonIndex]).readLesson();
+    }
+
+    /**
+     * Decodes the lesson with the given id, only lesson ids are read while searching
+     *
+     * @return The lesson, or null if it does not exist
+     */
+    public Lesson decodeLesson(String courseId, String lessonId) {
+        Entry entry = entries.get(courseId);
+        if (entry == null || lessonId == null) {
+            return null;
+        }
+        int[] offsets = lessonOffsets(entry);
+        for (int i = 0; i < offsets.length; i++) {
+            BinarySnapshotCodec.RecordInput in = input(offsets[i]);
+            if (in.readByte() == 1 && lessonId.equals(in.string())) {
+                return input(offsets[i]).readLesson();
+            }
+        }
+        return null;
+    }
+
+    // WALKS THE LESSON LENGTH PREFIXES OF A COURSE ONCE
+    private synchronized int[] lessonOffsets(Entry entry) {
+        if (entry.lessonOffsets == null) {
+            int[] offsets = new int[entry.header.getLessonCount()];
+            BinarySnapshotCodec.RecordInput in = input(entry.lessonsStart);
+            for (int i = 0; i < offsets.length; i++) {
+                int length = in.varint();
+                offsets[i] = in.position();
+                in = input(in.position() + length);
+            }
+            entry.lessonOffsets = offsets;
+        }
+        return entry.lessonOffsets;
+    }
+}
@@ -0,0 +1,196 @@
+package backend.databaseManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Background group commit for the users and courses stores
+ *
+ * update() / addX() / deleteX() on the managers only change memory and mark
+ * the entity dirty here. Dirty entities are coalesced (ten edits of the same
+ * course become one record holding its latest state) and journaled together:
+ * - every flush interval (db.flushIntervalMs, default 500 ms)
+ * - or as soon as batch size dirty entities are pending (db.flushBatchSize, default 100)
+ * - or when flush() is called, which returns once everything marked before
+ *   the call is durable (barrier for callers that need it)
+ * - and once more when the JVM shuts down
+ *
+ * A crash can lose at most the edits of the last interval, changes that must
+ * be durable at once go through UnitOfWork or call flush().
+ *
+ * An entity stays pending from markDirty() until its flush returned, the
+ * managers keep such an entity when they replay or reload what other app
+ * instances wrote (the local edit is journaled later, so it wins).
+ */
+public class PersistenceScheduler {
+
+    private static PersistenceScheduler instance;
+
+    private final long intervalMillis;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+
+    // store name -> flusher (journals the given ids, returns the record count or -1)
+    private final LinkedHashMap<String, ToIntFunction<ArrayList<String>>> stores =
+            new LinkedHashMap<String, ToIntFunction<ArrayList<String>>>();
+    // store name -> dirty ids, guarded by dirtyLock only (never held while calling a manager)
+    private final LinkedHashMap<String, LinkedHashSet<String>> dirty =
+            new LinkedHashMap<String, LinkedHashSet<String>>();
+    // store name -> ids taken by the running flush, not journaled yet (guarded by dirtyLock)
+    private final HashMap<String, HashSet<String>> inFlight = new HashMap<String, HashSet<String>>();
+    private final Object dirtyLock = new Object();
+    private int dirtyCount;
+    private boolean batchFlushQueued;
+    // one flush at a time, taken before any manager lock
+    private final Object flushLock = new Object();
+
+    PersistenceScheduler(long intervalMillis, int batchSize) {
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-group-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "db-flush-on-exit"));
+    }
+
+    /**
+     * @return The shared scheduler used by both managers
+     */
+    public static synchronized PersistenceScheduler getInstance() {
+        if (instance == null) {
+            instance = new PersistenceScheduler(Long.getLong("db.flushIntervalMs", 500),
+                    Integer.getInteger("db.flushBatchSize", 100));
+        }
+        return instance;
+    }
+
+    /**
+     * Registers the function that journals the dirty ids of a store
+     * The function is expected to take the store's own lock
+     */
+    void register(String store, ToIntFunction<ArrayList<String>> flusher) {
+        synchronized (dirtyLock) {
+            stores.put(store, flusher);
+            dirty.put(store, new LinkedHashSet<String>());
+            inFlight.put(store, new HashSet<String>());
+        }
+    }
+
+    /**
+     * Marks an entity whose in-memory state changed, it is journaled with the next flush
+     */
+    void markDirty(String store, String id) {
+        boolean flushNow = false;
+        synchronized (dirtyLock) {
+            if (dirty.get(store).add(id)) {
+                dirtyCount++;
+            }
+            if (dirtyCount >= batchSize && !batchFlushQueued) {
+                batchFlushQueued = true;
+                flushNow = true;
+            }
+        }
+        if (flushNow) {
+            executor.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Durable barrier: journals every entity marked dirty before this call
+     * and returns once the journal is forced to disk
+     *
+     * @return false if a store could not be written (its entities stay dirty)
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            LinkedHashMap<String, ArrayList<String>> pending = new LinkedHashMap<String, ArrayList<String>>();
+            synchronized (dirtyLock) {
+                for (Map.Entry<String, LinkedHashSet<String>> entry : dirty.entrySet()) {
+                    if (!entry.getValue().isEmpty()) {
+                        pending.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+                        inFlight.get(entry.getKey()).addAll(entry.getValue());
+                        entry.getValue().clear();
+                    }
+                }
+                dirtyCount = 0;
+                batchFlushQueued = false;
+            }
+            boolean ok = true;
+            for (Map.Entry<String, ArrayList<String>> entry : pending.entrySet()) {
+                boolean written = stores.get(entry.getKey()).applyAsInt(entry.getValue()) >= 0;
+                synchronized (dirtyLock) {
+                    if (!written) {
+                        ok = false;
+                        // nothing of this store was written, it is retried with the next flush
+                        for (String id : entry.getValue()) {
+                            if (dirty.get(entry.getKey()).add(id)) {
+                                dirtyCount++;
+                            }
+                        }
+                    }
+                    inFlight.get(entry.getKey()).removeAll(entry.getValue());
+                }
+            }
+            return ok;
+        }
+    }
+
+    /**
+     * @return true if the entity changed in memory and is not journaled yet
+     */
+    boolean isPending(String store, String id) {
+        synchronized (dirtyLock) {
+            return dirty.get(store).contains(id) || inFlight.get(store).contains(id);
+        }
+    }
+
+    /**
+     * @return Ids of the store changed in memory and not journaled yet
+     */
+    HashSet<String> pendingIds(String store) {
+        synchronized (dirtyLock) {
+            HashSet<String> ids = new HashSet<String>(dirty.get(store));
+            ids.addAll(inFlight.get(store));
+            return ids;
+        }
+    }
+
+    /**
+     * @return Number of entities changed in memory but not journaled yet
+     */
+    public int getPendingCount() {
+        synchronized (dirtyLock) {
+            return dirtyCount;
+        }
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    // BACKGROUND FLUSH, AN ERROR MUST NOT CANCEL THE PERIODIC TASK
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Background flush failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package backend.databaseManager;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable map String -> V with structural sharing (hash array mapped trie)
+ *
+ * Keys are placed by their hash, 5 bits per level, in nodes of 32 slots. A
+ * put or remove copies only the nodes on the path of the key (about
+ * log32(n) arrays of 32 references), every other node is shared with the
+ * previous map, so the cost of a write does not grow with the size of the map.
+ *
+ * Values may be null, containsKey tells a null value from a missing key.
+ * Used by CourseCatalogSnapshot, where every change publishes a new version.
+ */
+final class PersistentHashTrie<V> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final PersistentHashTrie<Object> EMPTY = new PersistentHashTrie<Object>(new Object[WIDTH], 0);
+
+    // a slot holds null, a Leaf or a child node (Object[])
+    private final Object[] root;
+    private final int size;
+
+    private PersistentHashTrie(Object[] root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    // THE ENTRIES OF ONE FULL HASH (ALMOST ALWAYS ONE), NEVER MODIFIED ONCE IN A PUBLISHED TRIE
+    private static final class Leaf {
+        private final int hash;
+        private final String[] keys;
+        private final Object[] values;
+
+        private Leaf(int hash, String[] keys, Object[] values) {
+            this.hash = hash;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentHashTrie<V> empty() {
+        return (PersistentHashTrie<V>) EMPTY;
+    }
+
+    /**
+     * Builds a trie from a map, the nodes are filled in place (nothing is shared yet)
+     */
+    static <V> PersistentHashTrie<V> of(Map<String, V> entries) {
+        Object[] root = new Object[WIDTH];
+        int size = 0;
+        for (Map.Entry<String, V> entry : entries.entrySet()) {
+            if (put(root, 0, hash(entry.getKey()), entry.getKey(), entry.getValue(), false) != null) {
+                size++;
+            }
+        }
+        return new PersistentHashTrie<V>(root, size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(String key) {
+        return leafOf(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(String key) {
+        Leaf leaf = leafOf(key);
+        return leaf != null ? (V) leaf.values[leaf.indexOf(key)] : null;
+    }
+
+    /**
+     * @return A new trie where the key maps to the value
+     */
+    PersistentHashTrie<V> put(String key, V value) {
+        Object[] newRoot = root.clone();
+        boolean added = put(newRoot, 0, hash(key), key, value, true) != null;
+        return new PersistentHashTrie<V>(newRoot, added ? size + 1 : size);
+    }
+
+    /**
+     * @return A new trie without the key, or this one if it is not in it
+     */
+    PersistentHashTrie<V> remove(String key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        Object[] newRoot = root.clone();
+        remove(newRoot, 0, hash(key), key);
+        return new PersistentHashTrie<V>(newRoot, size - 1);
+    }
+
+    private static int hash(String key) {
+        int hash = key.hashCode();
+        // spreads the high bits like HashMap, short ids differ mostly in the low ones
+        return hash ^ (hash >>> 16);
+    }
+
+    // LEAF HOLDING THE KEY, null IF THE KEY IS NOT IN THE TRIE
+    private Leaf leafOf(String key) {
+        if (key == null) {
+            return null;
+        }
+        int hash = hash(key);
+        Object[] node = root;
+        for (int shift = 0; ; shift += BITS) {
+            Object slot = node[(hash >>> shift) & MASK];
+            if (slot instanceof Leaf) {
+                Leaf leaf = (Leaf) slot;
+                return leaf.hash == hash && leaf.indexOf(key) >= 0 ? leaf : null;
+            }
+            if (slot == null) {
+                return null;
+            }
+            node = (Object[]) slot;
+        }
+    }
+
+    // PUTS THE ENTRY IN A NODE OWNED BY THE CALLER (ALREADY COPIED OR NEW), CHILD NODES ON THE PATH
+    // ARE COPIED IF copy IS SET. returns the node, null if the key was already in it (replaced)
+    private static Object[] put(Object[] node, int shift, int hash, String key, Object value, boolean copy) {
+        int index = (hash >>> shift) & MASK;
+        Object slot = node[index];
+        if (slot == null) {
+            node[index] = new Leaf(hash, new String[] { key }, new Object[] { value });
+            return node;
+        }
+        if (slot instanceof Leaf) {
+            Leaf leaf = (Leaf) slot;
+            if (leaf.hash == hash) {
+                int at = leaf.indexOf(key);
+                if (at >= 0) {
+                    Object[] values = leaf.values.clone();
+                    values[at] = value;
+                    node[index] = new Leaf(hash, leaf.keys, values);
+                    return null;
+                }
+                String[] keys = Arrays.copyOf(leaf.keys, leaf.keys.length + 1);
+                Object[] values = Arrays.copyOf(leaf.values, leaf.values.length + 1);
+                keys[leaf.keys.length] = key;
+                values[leaf.values.length] = value;
+                node[index] = new Leaf(hash, keys, values);
+                return node;
+            }
+            // two hashes in one slot: a new level below it, they differ at one of the next levels
+            Object[] child = new Object[WIDTH];
+            child[(leaf.hash >>> (shift + BITS)) & MASK] = leaf;
+            node[index] = child;
+            return put(child, shift + BITS, hash, key, value, false) != null ? node : null;
+        }
+        Object[] child = copy ? ((Object[]) slot).clone() : (Object[]) slot;
+        node[index] = child;
+        return put(child, shift + BITS, hash, key, value, copy) != null ? node : null;
+    }
+
+    // REMOVES A KEY KNOWN TO BE IN THE TRIE FROM A NODE OWNED BY THE CALLER, COPYING THE PATH BELOW
+    // a child left empty is dropped, a child left with a single leaf is replaced by that leaf
+    private static void remove(Object[] node, int shift, int hash, String key) {
+        int index = (hash >>> shift) & MASK;
+        Object slot = node[index];
+        if (slot instanceof Leaf) {
+            Leaf leaf = (Leaf) slot;
+            if (leaf.keys.length == 1) {
+                node[index] = null;
+                return;
+            }
+            int at = leaf.indexOf(key);
+            String[] keys = new String[leaf.keys.length - 1];
+            Object[] values = new Object[leaf.values.length - 1];
+            for (int i = 0, j = 0; i < leaf.keys.length; i++) {
+                if (i != at) {
+                    keys[j] = leaf.keys[i];
+                    values[j++] = leaf.values[i];
+                }
+            }
+            node[index] = new Leaf(hash, keys, values);
+            return;
+        }
+        Object[] child = ((Object[]) slot).clone();
+        remove(child, shift + BITS, hash, key);
+        Object single = null;
+        int used = 0;
+        for (Object entry : child) {
+            if (entry != null) {
+                used++;
+                single = entry;
+            }
+        }
+        if (used == 0) {
+            node[index] = null;
+        } else if (used == 1 && single instanceof Leaf) {
+            node[index] = single;
+        } else {
+            node[index] = child;
+        }
+    }
+}
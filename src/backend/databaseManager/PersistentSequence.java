@@ -0,0 +1,212 @@
+package backend.databaseManager;
+
+import java.util.ArrayList;
+
+/**
+ * Immutable ordered list of ids with structural sharing
+ *
+ * Every id is stored under a sequence key (a number that only grows, handed
+ * out by the owner), the list is in key order. The nodes form a weight
+ * balanced tree that keeps the size of every subtree, so:
+ * - adding or removing an id copies only the O(log n) nodes on its path
+ * - the id at a position is found in O(log n), a page costs O(log n + page)
+ *
+ * Used by CourseCatalogSnapshot for the catalog order and the ids of each
+ * approval status, where every change publishes a new version.
+ */
+final class PersistentSequence {
+
+    // balance parameters of Adams' weight balanced trees
+    private static final int DELTA = 3;
+    private static final int RATIO = 2;
+
+    static final PersistentSequence EMPTY = new PersistentSequence(null);
+
+    private final Node root;
+
+    private PersistentSequence(Node root) {
+        this.root = root;
+    }
+
+    private static final class Node {
+        private final Node left;
+        private final long key;
+        private final String id;
+        private final Node right;
+        private final int size;
+
+        private Node(Node left, long key, String id, Node right) {
+            this.left = left;
+            this.key = key;
+            this.id = id;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    /**
+     * Builds a sequence from ids already in key order (keys ascending)
+     */
+    static PersistentSequence of(long[] keys, String[] ids, int count) {
+        return new PersistentSequence(build(keys, ids, 0, count));
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @return A new sequence holding the id under the key (replaced if the key is in it)
+     */
+    PersistentSequence add(long key, String id) {
+        return new PersistentSequence(insert(root, key, id));
+    }
+
+    /**
+     * @return A new sequence without the key, or this one if it is not in it
+     */
+    PersistentSequence remove(long key) {
+        Node newRoot = delete(root, key);
+        return newRoot == root ? this : new PersistentSequence(newRoot);
+    }
+
+    /**
+     * @return The ids from position from (inclusive) to position to (exclusive), in order
+     */
+    ArrayList<String> page(int from, int to) {
+        int start = Math.max(from, 0);
+        int end = Math.min(to, size());
+        ArrayList<String> ids = new ArrayList<String>(Math.max(end - start, 0));
+        collect(root, start, end, ids);
+        return ids;
+    }
+
+    /**
+     * @return Every id, in order
+     */
+    ArrayList<String> toList() {
+        return page(0, size());
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static Node build(long[] keys, String[] ids, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(build(keys, ids, from, middle), keys[middle], ids[middle], build(keys, ids, middle + 1, to));
+    }
+
+    // ADDS THE IDS OF THE POSITIONS [from, to) OF THE SUBTREE (POSITIONS RELATIVE TO IT)
+    private static void collect(Node node, int from, int to, ArrayList<String> ids) {
+        if (node == null || from >= to) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (from < leftSize) {
+            collect(node.left, from, Math.min(to, leftSize), ids);
+        }
+        if (from <= leftSize && leftSize < to) {
+            ids.add(node.id);
+        }
+        if (to > leftSize + 1) {
+            collect(node.right, Math.max(from - leftSize - 1, 0), to - leftSize - 1, ids);
+        }
+    }
+
+    private static Node insert(Node node, long key, String id) {
+        if (node == null) {
+            return new Node(null, key, id, null);
+        }
+        if (key < node.key) {
+            return balance(insert(node.left, key, id), node.key, node.id, node.right);
+        }
+        if (key > node.key) {
+            return balance(node.left, node.key, node.id, insert(node.right, key, id));
+        }
+        return new Node(node.left, key, id, node.right);
+    }
+
+    // RETURNS THE SAME NODE IF THE KEY IS NOT IN THE SUBTREE
+    private static Node delete(Node node, long key) {
+        if (node == null) {
+            return null;
+        }
+        if (key < node.key) {
+            Node left = delete(node.left, key);
+            return left == node.left ? node : balance(left, node.key, node.id, node.right);
+        }
+        if (key > node.key) {
+            Node right = delete(node.right, key);
+            return right == node.right ? node : balance(node.left, node.key, node.id, right);
+        }
+        return glue(node.left, node.right);
+    }
+
+    // JOINS THE TWO SUBTREES OF A DELETED NODE, THE LARGER ONE GIVES UP ITS NEAREST NODE AS THE ROOT
+    private static Node glue(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.size > right.size) {
+            Node max = left;
+            while (max.right != null) {
+                max = max.right;
+            }
+            return balance(deleteMax(left), max.key, max.id, right);
+        }
+        Node min = right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(left, min.key, min.id, deleteMin(right));
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(deleteMin(node.left), node.key, node.id, node.right);
+    }
+
+    private static Node deleteMax(Node node) {
+        if (node.right == null) {
+            return node.left;
+        }
+        return balance(node.left, node.key, node.id, deleteMax(node.right));
+    }
+
+    // NEW NODE FROM TWO SUBTREES THAT WERE BALANCED BEFORE ONE INSERT OR DELETE, ROTATES IF NEEDED
+    private static Node balance(Node left, long key, String id, Node right) {
+        int leftSize = size(left);
+        int rightSize = size(right);
+        if (leftSize + rightSize <= 1) {
+            return new Node(left, key, id, right);
+        }
+        if (rightSize > DELTA * leftSize) {
+            if (size(right.left) < RATIO * size(right.right)) {
+                // single left rotation
+                return new Node(new Node(left, key, id, right.left), right.key, right.id, right.right);
+            }
+            Node middle = right.left;
+            return new Node(new Node(left, key, id, middle.left), middle.key, middle.id,
+                    new Node(middle.right, right.key, right.id, right.right));
+        }
+        if (leftSize > DELTA * rightSize) {
+            if (size(left.right) < RATIO * size(left.left)) {
+                // single right rotation
+                return new Node(left.left, left.key, left.id, new Node(left.right, key, id, right));
+            }
+            Node middle = left.right;
+            return new Node(new Node(left.left, left.key, left.id, middle.left), middle.key, middle.id,
+                    new Node(middle.right, key, id, right));
+        }
+        return new Node(left, key, id, right);
+    }
+}
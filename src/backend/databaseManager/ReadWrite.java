@@ -2,7 +2,16 @@ package backend.databaseManager;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.function.Consumer;
 //lib imports
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
@@ -24,11 +33,39 @@ import backend.models.parents.User;
  * 3. Comprehensive error handling and logging
  * 4. Automatic directory creation
  * 5. Type-safe generic operations
- * 6. Thread-safe operations with synchronized methods
+ * 6. Thread-safe and multi-process-safe file access through per-file
+ *    read/write locks (see FileLocks): readers share, writers are exclusive
+ * 7. Streaming reads: entities are decoded one at a time from a buffered
+ *    file channel (see forEachInFile / iterateFile)
+ * 8. Optional compact binary snapshots for files ending in ".bin"
+ *    (see BinarySnapshotCodec), selected per file by its extension
+ * 9. Crash-safe writes: temp file + fsync + atomic rename, previous generation
+ *    kept as "<file>.bak" and used as a fallback when the live file is corrupt
  */
 public class ReadWrite {
 
+    public static final String TEMP_SUFFIX = ".tmp";
+    public static final String BACKUP_SUFFIX = ".bak";
+
+    private static final boolean IS_WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    // size of the read buffer placed over the file channel
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
     private final Gson gson;
+    private final BinarySnapshotCodec binaryCodec = new BinarySnapshotCodec();
+
+    private static ReadWrite instance;
+
+    /**
+     * @return The shared instance used by the database managers
+     */
+    public static synchronized ReadWrite getInstance() {
+        if (instance == null) {
+            instance = new ReadWrite();
+        }
+        return instance;
+    }
 
     /**
      * Constructor initializes GSON with custom configuration
@@ -38,48 +75,41 @@ public class ReadWrite {
      * - Handles dates consistently
      */
     public ReadWrite() {
-        // Custom type adapter for collections that returns empty lists instead of null
-        TypeAdapter<Collection> collectionAdapter = new TypeAdapter<Collection>() {
+        // Custom type adapter factory for collections that returns empty collections instead of null
+        // It wraps Gson's own collection adapter, so it applies to every parameterized
+        // collection field (ArrayList<Lesson>, ArrayList<String>, ...) and keeps streaming
+        TypeAdapterFactory collectionFactory = new TypeAdapterFactory() {
             @Override
-            public void write(JsonWriter out, Collection value) throws IOException {
-                if (value == null || value.isEmpty()) {
-                    out.nullValue(); // Write null for empty collections
-                } else {
-                    out.beginArray();
-                    for (Object item : value) {
-                        gson.toJson(item, item.getClass(), out);
-                    }
-                    out.endArray();
-                }
-            }
-
-            @Override
-            public Collection read(JsonReader in) throws IOException {
-                if (in.peek() == JsonToken.NULL) {
-                    in.nextNull();
-                    return new ArrayList(); // Return empty ArrayList instead of null
+            public <C> TypeAdapter<C> create(Gson gson, TypeToken<C> typeToken) {
+                if (!Collection.class.isAssignableFrom(typeToken.getRawType())) {
+                    return null;
                 }
-                
-                // Handle case where JSON array is empty
-                if (in.peek() == JsonToken.BEGIN_ARRAY) {
-                    in.beginArray();
-                    if (in.peek() == JsonToken.END_ARRAY) {
-                        in.endArray();
-                        return new ArrayList(); // Empty array returns empty list
+                final TypeAdapter<C> delegate = gson.getDelegateAdapter(this, typeToken);
+                // Same output as the adapter this replaces: it was registered for the raw Collection,
+                // List and ArrayList types (the entity list of a file), and wrote null when empty
+                Type type = typeToken.getType();
+                final boolean nullWhenEmpty = type == Collection.class || type == List.class
+                        || type == ArrayList.class;
+                return new TypeAdapter<C>() {
+                    @Override
+                    public void write(JsonWriter out, C value) throws IOException {
+                        if (nullWhenEmpty && (value == null || ((Collection<?>) value).isEmpty())) {
+                            out.nullValue(); // Write null for empty collections
+                            return;
+                        }
+                        delegate.write(out, value);
                     }
-                    in.endArray();
-                    // Reset and read properly
-                    in = new JsonReader(new StringReader(in.toString()));
-                }
 
-                ArrayList<Object> list = new ArrayList<>();
-                in.beginArray();
-                while (in.hasNext()) {
-                    Object item = gson.fromJson(in, Object.class);
-                    list.add(item);
-                }
-                in.endArray();
-                return list;
+                    @Override
+                    public C read(JsonReader in) throws IOException {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                            // Return an empty collection of the declared type instead of null
+                            return delegate.fromJsonTree(new JsonArray());
+                        }
+                        return delegate.read(in);
+                    }
+                };
             }
         };
 
@@ -138,9 +168,7 @@ public class ReadWrite {
                 .disableHtmlEscaping() // Preserve HTML in content
                 .setDateFormat("yyyy-MM-dd HH:mm:ss") // Consistent date format
                 .registerTypeAdapter(User.class, userDeserializer) // Handle User polymorphism
-                .registerTypeAdapter(Collection.class, collectionAdapter)
-                .registerTypeAdapter(List.class, collectionAdapter)
-                .registerTypeAdapter(ArrayList.class, collectionAdapter)
+                .registerTypeAdapterFactory(collectionFactory)
                 .create();
     }
 
@@ -155,7 +183,7 @@ public class ReadWrite {
      * @param type Class type of the objects (e.g., User.class, Course.class)
      * @return ArrayList of objects, never null (returns empty list on error)
      */
-    public synchronized <T> ArrayList<T> readFromFile(String filename, Class<T> type) {
+    public <T> ArrayList<T> readFromFile(String filename, Class<T> type) {
         // Validate input parameters
         if (filename == null || filename.trim().isEmpty()) {
             System.err.println("Filename cannot be null or empty");
@@ -167,80 +195,268 @@ public class ReadWrite {
             return new ArrayList<T>();
         }
 
+        // shared with other readers, excludes writers of this file in any process
+        FileLocks.Handle lock = FileLocks.read(filename);
+        try {
+            return readWithFallback(filename, type);
+        } finally {
+            lock.close();
+        }
+    }
+
+    // READS THE LIVE FILE OR ITS PREVIOUS GENERATION (CALLER HOLDS THE READ LOCK)
+    private <T> ArrayList<T> readWithFallback(String filename, Class<T> type) {
         File file = new File(filename);
+        File backup = new File(filename + BACKUP_SUFFIX);
         
         // If file doesn't exist, return empty list instead of throwing error
         if (!file.exists()) {
+            if (backup.exists()) {
+                System.err.println("File not found: " + filename + ", reading previous generation");
+                ArrayList<T> items = readList(backup, type);
+                return items != null ? items : new ArrayList<T>();
+            }
             System.out.println("File not found: " + filename + ", returning empty list");
             return new ArrayList<T>();
         }
 
+        ArrayList<T> items = readList(file, type);
+        if (items != null) {
+            return items;
+        }
+
+        /**
+         * The live file is unreadable (e.g. truncated by a crash of an old writer)
+         * Fall back to the previous generation instead of returning an empty list
+         * that the next save would persist over all the data
+         */
+        if (backup.exists()) {
+            System.err.println("Falling back to previous generation: " + backup.getPath());
+            items = readList(backup, type);
+            if (items != null) {
+                return items;
+            }
+        }
+        return new ArrayList<T>();
+    }
+
+    /**
+     * Parses one JSON array file
+     *
+     * @return The list (empty for an empty file), or null if the file is unreadable
+     */
+    private <T> ArrayList<T> readList(File file, Class<T> type) {
+        String filename = file.getPath();
+
         // Check if file is empty
         if (file.length() == 0) {
             System.out.println("File is empty: " + filename + ", returning empty list");
             return new ArrayList<T>();
         }
 
-        try (Reader reader = new FileReader(file)) {
-            /**
-             * TypeToken trick: GSON needs to know the generic type at runtime due to type erasure
-             * TypeToken preserves generic type information so GSON can properly deserialize
-             * List<User>, List<Course>, etc.
-             */
-            Type listType = TypeToken.getParameterized(List.class, type).getType();
-            ArrayList<T> items = gson.fromJson(reader, listType);
-            
-            // Always return non-null list - convert null to empty list
-            return items != null ? items : new ArrayList<T>();
+        try {
+            ArrayList<T> items = new ArrayList<T>();
+            if (BinarySnapshotCodec.isBinary(filename)) {
+                binaryCodec.read(file, type, items::add);
+            } else {
+                stream(file, type, items::add);
+            }
+            return items;
 
         } catch (FileNotFoundException e) {
             System.err.println("File not found (should not happen after existence check): " + filename);
-            return new ArrayList<T>();
+            return null;
         } catch (IOException e) {
             /**
-             * IOException handling: Log error and return empty list
+             * IOException handling: Log error and report the file as unreadable
              * This prevents the entire application from crashing due to file issues
              */
             System.err.println("IO Error reading from " + filename + ": " + e.getMessage());
-            return new ArrayList<T>();
+            return null;
         } catch (JsonSyntaxException e) {
             /**
              * JSON syntax error: File exists but contains invalid JSON
-             * Log detailed error and return empty list
+             * Log detailed error and report the file as unreadable
              */
             System.err.println("Invalid JSON syntax in " + filename + ": " + e.getMessage());
-            return new ArrayList<T>();
+            return null;
         } catch (JsonIOException e) {
             /**
              * JSON IO error: Issues with JSON parsing
              */
             System.err.println("JSON IO Error in " + filename + ": " + e.getMessage());
-            return new ArrayList<T>();
+            return null;
         } catch (Exception e) {
             /**
              * Catch-all for any other unexpected exceptions
              */
             System.err.println("Unexpected error reading from " + filename + ": " + e.getMessage());
             e.printStackTrace();
-            return new ArrayList<T>();
+            return null;
+        }
+    }
+
+    /**
+     * Streams every entity of a JSON array file to the consumer, one at a time
+     * - Never materializes the whole array, memory stays bounded by one entity
+     * - Reads the previous generation if the live file doesn't exist
+     * - Handles all exceptions gracefully
+     *
+     * @param <T> The type of objects in the file
+     * @param filename Path to the JSON file
+     * @param type Class type of the objects (e.g., User.class, Course.class)
+     * @param consumer Receives every decoded entity in file order
+     * @return Number of entities delivered, or -1 if the file could not be read completely
+     */
+    public <T> int forEachInFile(String filename, Class<T> type, Consumer<? super T> consumer) {
+        if (filename == null || filename.trim().isEmpty() || type == null || consumer == null) {
+            System.err.println("forEachInFile: filename, type and consumer are required");
+            return -1;
+        }
+        final int[] count = new int[1];
+        File file = new File(filename);
+        FileLocks.Handle lock = FileLocks.read(filename);
+        try {
+            if (!file.exists()) {
+                file = new File(filename + BACKUP_SUFFIX);
+                if (!file.exists()) {
+                    return 0;
+                }
+            }
+            if (file.length() == 0) {
+                return 0;
+            }
+            if (BinarySnapshotCodec.isBinary(filename)) {
+                return binaryCodec.read(file, type, consumer);
+            }
+            stream(file, type, item -> {
+                count[0]++;
+                consumer.accept(item);
+            });
+            return count[0];
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error streaming " + file.getPath() + " after " + count[0] + " items: "
+                    + e.getMessage());
+            return -1;
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Opens a JSON array file as an iterator of entities
+     * The caller must close the iterator (try-with-resources)
+     *
+     * @param <T> The type of objects in the file
+     * @param filename Path to the JSON file
+     * @param type Class type of the objects (e.g., User.class, Course.class)
+     * @return Iterator over the entities of the file
+     * @throws IOException if the file can not be opened
+     */
+    public <T> EntityIterator<T> iterateFile(String filename, Class<T> type) throws IOException {
+        if (BinarySnapshotCodec.isBinary(filename)) {
+            throw new IOException("iterateFile reads JSON snapshots only, use forEachInFile for " + filename);
+        }
+        // the read lock is held until the iterator is closed
+        FileLocks.Handle lock = FileLocks.read(filename);
+        try {
+            return new EntityIterator<T>(openReader(new File(filename)), type, lock);
+        } catch (IOException | RuntimeException e) {
+            lock.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Iterator over the entities of one JSON array file
+     * Decodes lazily, one entity per call to next()
+     */
+    public class EntityIterator<T> implements Iterator<T>, Closeable {
+        private final JsonReader reader;
+        private final Class<T> type;
+        private FileLocks.Handle lock; // released on close, null if the caller holds it
+        private boolean open;
+
+        private EntityIterator(JsonReader reader, Class<T> type, FileLocks.Handle lock) throws IOException {
+            this.reader = reader;
+            this.type = type;
+            this.lock = lock;
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                this.open = false;
+            } else {
+                reader.beginArray();
+                this.open = true;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return open && reader.hasNext();
+            } catch (IOException e) {
+                throw new JsonIOException(e);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return gson.fromJson(reader, type);
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            try {
+                reader.close();
+            } finally {
+                if (lock != null) {
+                    lock.close();
+                    lock = null;
+                }
+            }
+        }
+    }
+
+    // OPENS A BUFFERED UTF-8 JSON READER OVER THE FILE CHANNEL
+    private JsonReader openReader(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        Reader reader = new BufferedReader(
+                Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1), READ_BUFFER_SIZE);
+        return new JsonReader(reader);
+    }
+
+    // DECODES THE ENTITIES OF A JSON ARRAY FILE ONE BY ONE
+    private <T> void stream(File file, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        try (EntityIterator<T> iterator = new EntityIterator<T>(openReader(file), type, null)) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+            }
         }
     }
 
     /**
      * Writes data to JSON file
      * - Creates parent directories if they don't exist
+     * - Writes to a temp file, fsyncs it and atomically renames it over the
+     *   live file, so a crash never leaves a truncated file behind
+     * - Keeps the previous generation as "<file>.bak"
      * - Handles all IO exceptions gracefully
-     * - Thread-safe operation
+     * - Holds the file's exclusive lock (this process and the others) while writing
      * 
      * @param <T> The type of objects in the list
      * @param filename Path to the JSON file
      * @param items List of objects to serialize
+     * @return true if the file was replaced, false if the previous file was kept
      */
-    public synchronized <T> void writeToFile(String filename, List<T> items) {
+    public <T> boolean writeToFile(String filename, List<T> items) {
         // Validate input parameters
         if (filename == null || filename.trim().isEmpty()) {
             System.err.println("Filename cannot be null or empty for write operation");
-            return;
+            return false;
         }
 
         // Handle null items list
@@ -251,6 +467,7 @@ public class ReadWrite {
 
         File file = new File(filename);
         
+        FileLocks.Handle lock = FileLocks.write(filename);
         try {
             // Create parent directories if they don't exist
             File parentDir = file.getParentFile();
@@ -262,28 +479,219 @@ public class ReadWrite {
                 }
             }
 
-            // Create file if it doesn't exist
-            if (!file.exists()) {
-                if (file.createNewFile()) {
-                    System.out.println("File created: " + file.getName());
+            // Write data to a temp file next to the live one and force it to disk
+            File temp = new File(filename + TEMP_SUFFIX);
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                if (BinarySnapshotCodec.isBinary(filename)) {
+                    binaryCodec.write(items, out);
                 } else {
-                    throw new IOException("Failed to create file: " + filename);
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                    gson.toJson(items, writer);
+                    writer.flush();
                 }
+                out.getChannel().force(true);
             }
 
-            // Write data to file
-            try (Writer writer = new FileWriter(file)) {
-                gson.toJson(items, writer);
-                System.out.println("Successfully wrote " + items.size() + " items to " + filename);
-            }
+            // Swap it in, keeping the previous generation as a fallback
+            replaceAtomically(temp, file, true);
+            System.out.println("Successfully wrote " + items.size() + " items to " + filename);
+            return true;
 
         } catch (IOException e) {
             // Critical to inform user when save fails
             System.err.println("Error writing to " + filename + ": " + e.getMessage());
             e.printStackTrace();
+            return false;
         } catch (Exception e) {
             System.err.println("Unexpected error writing to " + filename + ": " + e.getMessage());
             e.printStackTrace();
+            return false;
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Moves a fully written (and fsync'd) temp file over the target
+     * - Optionally copies the current target to "<target>.bak" first
+     * - Uses an atomic rename when the file system supports it
+     * - Forces the parent directory afterwards, so a power loss can not roll
+     *   the rename back once the caller relies on it (e.g. truncates the journal)
+     *
+     * @param temp Completely written replacement file
+     * @param target Live file to replace
+     * @param keepBackup Whether to keep the previous generation
+     */
+    static void replaceAtomically(File temp, File target, boolean keepBackup) throws IOException {
+        Path source = temp.toPath();
+        Path destination = target.toPath();
+        if (keepBackup && target.exists() && target.length() > 0) {
+            Files.copy(destination, new File(target.getPath() + BACKUP_SUFFIX).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            System.err.println("Atomic move not supported for " + target.getPath() + ", replacing instead");
+            Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(destination.toAbsolutePath().getParent());
+    }
+
+    // FORCES A DIRECTORY ENTRY CHANGE (RENAME) TO DISK
+    // Windows can not open a directory as a channel, NTFS journals the rename itself
+    private static void syncDirectory(Path directory) throws IOException {
+        if (directory == null || IS_WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * @return The configured Gson instance (package use only, e.g. benchmarks that
+     *         must decode with the same adapters as the database)
+     */
+    Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * Converts a single entity to a JSON tree using the database configuration
+     * Used to write entity-level journal records
+     *
+     * @param item Entity to convert
+     * @return JSON tree of the entity
+     */
+    public JsonElement toJsonTree(Object item) {
+        return gson.toJsonTree(item);
+    }
+
+    /**
+     * Converts a JSON tree back to a single entity
+     * - Handles User polymorphism the same way readFromFile does
+     *
+     * @param <T> The type of the entity
+     * @param json JSON tree of the entity
+     * @param type Class type of the entity (e.g., User.class, Course.class)
+     * @return The entity, or null if the tree can not be converted
+     */
+    public <T> T fromJsonTree(JsonElement json, Class<T> type) {
+        try {
+            return gson.fromJson(json, type);
+        } catch (JsonParseException e) {
+            System.err.println("Invalid JSON entity of type " + type.getSimpleName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Picks the snapshot file a database should use
+     * A binary snapshot next to the JSON file ("users.bin" for "users.json")
+     * takes precedence, otherwise the JSON file is used
+     *
+     * @param jsonFilename Path of the JSON snapshot
+     * @return Path of the snapshot to read and write
+     */
+    public String resolveSnapshot(String jsonFilename) {
+        String base = jsonFilename.endsWith(".json")
+                ? jsonFilename.substring(0, jsonFilename.length() - ".json".length())
+                : jsonFilename;
+        String binary = base + BinarySnapshotCodec.BINARY_EXTENSION;
+        return fileExists(binary) || fileExists(binary + BACKUP_SUFFIX) || findGenerations(binary).length > 0
+                ? binary : jsonFilename;
+    }
+
+    /**
+     * Name of one generation of a snapshot
+     * Generation 0 is the file itself, generation n of "courses.bin" is "courses.n.bin".
+     * A snapshot that is memory-mapped is replaced by writing a new generation
+     * instead of renaming over it (a mapped file can not be replaced on Windows,
+     * and the old mapping stays valid for the readers still using it)
+     *
+     * @param filename Path of the snapshot (generation 0)
+     * @param generation Generation number
+     * @return Path of that generation
+     */
+    public static String generationFile(String filename, long generation) {
+        if (generation == 0) {
+            return filename;
+        }
+        int dot = filename.lastIndexOf('.');
+        int slash = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf(File.separatorChar));
+        if (dot <= slash) {
+            return filename + "." + generation;
+        }
+        return filename.substring(0, dot) + "." + generation + filename.substring(dot);
+    }
+
+    /**
+     * Generations of a snapshot present on disk
+     *
+     * @param filename Path of the snapshot (generation 0)
+     * @return Generation numbers, newest first (empty if there is none)
+     */
+    public long[] findGenerations(String filename) {
+        File plain = new File(filename);
+        File dir = plain.getAbsoluteFile().getParentFile();
+        String name = plain.getName();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) + "." : name + ".";
+        String extension = dot > 0 ? name.substring(dot) : "";
+        ArrayList<Long> found = new ArrayList<Long>();
+        if (plain.exists()) {
+            found.add(0L);
+        }
+        String[] names = dir != null ? dir.list() : null;
+        if (names != null) {
+            for (String candidate : names) {
+                if (candidate.length() > stem.length() + extension.length() && candidate.startsWith(stem)
+                        && candidate.endsWith(extension)) {
+                    String number = candidate.substring(stem.length(), candidate.length() - extension.length());
+                    try {
+                        long generation = Long.parseLong(number);
+                        if (generation > 0 && number.equals(Long.toString(generation))) {
+                            found.add(generation);
+                        }
+                    } catch (NumberFormatException e) {
+                        // another file next to the snapshot
+                    }
+                }
+            }
+        }
+        Collections.sort(found, Collections.reverseOrder());
+        long[] generations = new long[found.size()];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = found.get(i);
+        }
+        return generations;
+    }
+
+    /**
+     * Deletes all but the newest generations of a snapshot
+     * A generation that can not be deleted yet (still mapped by a process on
+     * Windows) is left for a later call
+     *
+     * @param filename Path of the snapshot (generation 0)
+     * @param keep Number of newest generations to keep
+     */
+    public void deleteOldGenerations(String filename, int keep) {
+        long[] generations = findGenerations(filename);
+        for (int i = keep; i < generations.length; i++) {
+            String old = generationFile(filename, generations[i]);
+            FileLocks.Handle lock = FileLocks.write(old);
+            try {
+                if (!new File(old).delete()) {
+                    System.err.println("Could not delete old snapshot " + old + ", retried after the next write");
+                    continue;
+                }
+                new File(old + BACKUP_SUFFIX).delete();
+            } finally {
+                lock.close();
+            }
+            // best effort, the sidecar may still be open in this process
+            new File(old + FileLocks.LOCK_SUFFIX).delete();
         }
     }
 
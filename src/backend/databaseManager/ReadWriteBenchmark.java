@@ -0,0 +1,96 @@
+package backend.databaseManager;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+//lib imports
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import backend.models.*;
+
+/**
+ * Throughput benchmark of the course snapshot read paths
+ * Compares the old whole-array read (unbuffered FileReader + gson.fromJson of the list)
+ * with the streaming forEachInFile path on a generated courses file. Both sides decode
+ * with the same configured Gson, so only the read path differs
+ *
+ * FOR TESTING ONLY - run with: java backend.databaseManager.ReadWriteBenchmark [courses] [rounds]
+ */
+public class ReadWriteBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int courseCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File file = File.createTempFile("courses-benchmark", ".json");
+        file.deleteOnExit();
+        ReadWrite db = new ReadWrite();
+        db.writeToFile(file.getPath(), generateCourses(courseCount));
+        new File(file.getPath() + ReadWrite.BACKUP_SUFFIX).deleteOnExit();
+        System.out.println("=== ReadWrite benchmark: " + courseCount + " courses, "
+                + file.length() / 1024 + " KB ===");
+
+        Gson legacyGson = db.getGson();
+        Type listType = TypeToken.getParameterized(List.class, Course.class).getType();
+
+        // warm up both paths before measuring
+        for (int i = 0; i < 2; i++) {
+            readLegacy(legacyGson, listType, file);
+            db.forEachInFile(file.getPath(), Course.class, course -> { });
+        }
+
+        long legacyNanos = 0;
+        long streamingNanos = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            readLegacy(legacyGson, listType, file);
+            legacyNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            db.forEachInFile(file.getPath(), Course.class, course -> { });
+            streamingNanos += System.nanoTime() - start;
+        }
+
+        report("whole-array FileReader", courseCount, rounds, legacyNanos);
+        report("streaming forEachInFile", courseCount, rounds, streamingNanos);
+    }
+
+    // THE READ PATH USED BEFORE STREAMING
+    private static List<Course> readLegacy(Gson gson, Type listType, File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return gson.fromJson(reader, listType);
+        }
+    }
+
+    private static ArrayList<Course> generateCourses(int count) {
+        ArrayList<Course> courses = new ArrayList<Course>();
+        for (int i = 1; i <= count; i++) {
+            Course course = new Course("C" + i, "Course " + i, "U" + (i % 50 + 1), "Description of course " + i);
+            for (int l = 1; l <= 5; l++) {
+                Lesson lesson = new Lesson("L" + l, "Lesson " + l, course.getCourseId(),
+                        "Content of lesson " + l + " of course " + i);
+                Quiz quiz = new Quiz("Q" + l, lesson.getLessonId(), "Quiz " + l);
+                ArrayList<String> options = new ArrayList<String>();
+                options.add("A");
+                options.add("B");
+                options.add("C");
+                quiz.addQuestion(new Question("Q" + l + "-Question1", "Question?", options, "B"));
+                lesson.setQuiz(quiz);
+                course.addLesson(lesson);
+            }
+            for (int s = 1; s <= 20; s++) {
+                course.addStudent("U" + (1000 + s));
+            }
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    private static void report(String name, int courseCount, int rounds, long nanos) {
+        double millis = nanos / 1_000_000.0 / rounds;
+        System.out.println(String.format("%-26s %8.2f ms/read  %10.0f courses/s",
+                name, millis, courseCount / (millis / 1000.0)));
+    }
+}
@@ -0,0 +1,169 @@
+package backend.databaseManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+
+import com.google.gson.JsonObject;
+
+import backend.models.Course;
+import backend.models.parents.User;
+
+/**
+ * Unit of work spanning the users and courses stores
+ *
+ * Changes to both stores are staged here and nothing is written until
+ * commit(). The commit journals every staged change of both stores as one
+ * journal line (which the journal replays completely or not at all) and only
+ * then applies them to the shared managers, so a crash or failure can never
+ * leave Course.students and Student.enrolledCourses out of step.
+ *
+ * Usage:
+ *   UnitOfWork uow = new UnitOfWork();
+ *   uow.putUser(student);
+ *   uow.putCourse(course);
+ *   if (!uow.commit()) { ... nothing was changed ... }
+ *
+ * rollback() drops everything staged so far. A unit of work is single use.
+ */
+public class UnitOfWork {
+
+    private final CourseDatabaseManager Cdb;
+    private final UsersDatabaseManager Udb;
+    private final Journal journal;
+
+    // staged state by id, insertion order = order the records are replayed in
+    private final LinkedHashMap<String, User> stagedUsers = new LinkedHashMap<String, User>();
+    private final LinkedHashMap<String, Course> stagedCourses = new LinkedHashMap<String, Course>();
+    private final LinkedHashSet<String> deletedCourses = new LinkedHashSet<String>();
+    private boolean finished;
+
+    public UnitOfWork() {
+        this(CourseDatabaseManager.getInstance(), UsersDatabaseManager.getInstance(), Journal.getInstance());
+    }
+
+    UnitOfWork(CourseDatabaseManager Cdb, UsersDatabaseManager Udb, Journal journal) {
+        this.Cdb = Cdb;
+        this.Udb = Udb;
+        this.journal = journal;
+    }
+
+    /**
+     * Stages the new state of a user (a copy is kept, later edits of the
+     * passed object are not seen unless it is staged again)
+     */
+    public void putUser(User user) {
+        checkOpen();
+        if (user != null && user.getUserId() != null) {
+            stagedUsers.put(user.getUserId(), UsersDatabaseManager.copyOf(user));
+        }
+    }
+
+    /**
+     * Stages the new state of a course (a copy is kept)
+     */
+    public void putCourse(Course course) {
+        checkOpen();
+        if (course != null && course.getCourseId() != null) {
+            deletedCourses.remove(course.getCourseId());
+            stagedCourses.put(course.getCourseId(), new Course(course));
+        }
+    }
+
+    /**
+     * Stages the removal of a course
+     */
+    public void deleteCourse(String courseId) {
+        checkOpen();
+        if (courseId != null) {
+            stagedCourses.remove(courseId);
+            deletedCourses.add(courseId);
+        }
+    }
+
+    /**
+     * @return The user as seen by this unit of work (staged state first), a copy
+     */
+    public User getUser(String userId) {
+        User staged = stagedUsers.get(userId);
+        return staged != null ? UsersDatabaseManager.copyOf(staged) : Udb.getUser(userId);
+    }
+
+    /**
+     * @return The course as seen by this unit of work (staged state first), a copy
+     */
+    public Course getCourse(String courseId) {
+        if (deletedCourses.contains(courseId)) {
+            return null;
+        }
+        Course staged = stagedCourses.get(courseId);
+        return staged != null ? new Course(staged) : Cdb.getCourse(courseId);
+    }
+
+    public boolean isEmpty() {
+        return stagedUsers.isEmpty() && stagedCourses.isEmpty() && deletedCourses.isEmpty();
+    }
+
+    /**
+     * Writes every staged change of both stores as one atomic journal group,
+     * then applies it to the shared managers
+     *
+     * @return true if the changes are durable and visible, false if nothing was changed
+     */
+    public boolean commit() {
+        checkOpen();
+        finished = true;
+        if (isEmpty()) {
+            return true;
+        }
+        // always users before courses, the only order in which both locks are taken
+        synchronized (Udb) {
+            synchronized (Cdb) {
+                ArrayList<JsonObject> records = new ArrayList<JsonObject>();
+                for (User user : stagedUsers.values()) {
+                    records.add(Udb.stagedPutRecord(user));
+                }
+                for (Course course : stagedCourses.values()) {
+                    records.add(Cdb.stagedPutRecord(course));
+                }
+                for (String courseId : deletedCourses) {
+                    records.add(Cdb.stagedDeleteRecord(courseId));
+                }
+                // both stores first replay what other app instances journaled, the staged state goes after it
+                if (!journal.append(records, Udb.journalCursor(), Cdb.journalCursor())) {
+                    System.out.println("UnitOfWork: commit failed, no change was applied.");
+                    return false;
+                }
+                for (User user : stagedUsers.values()) {
+                    Udb.applyPut(user);
+                }
+                for (Course course : stagedCourses.values()) {
+                    Cdb.applyPut(course);
+                }
+                for (String courseId : deletedCourses) {
+                    Cdb.applyDelete(courseId);
+                }
+            }
+        }
+        // folds the journal into the snapshots if it grew past the threshold
+        Udb.SaveUsersToFile();
+        Cdb.SaveCoursesToFile();
+        return true;
+    }
+
+    /**
+     * Drops every staged change, nothing has been written
+     */
+    public void rollback() {
+        stagedUsers.clear();
+        stagedCourses.clear();
+        deletedCourses.clear();
+        finished = true;
+    }
+
+    private void checkOpen() {
+        if (finished) {
+            throw new IllegalStateException("UnitOfWork already committed or rolled back");
+        }
+    }
+}
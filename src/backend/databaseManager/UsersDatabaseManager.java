@@ -1,67 +1,254 @@
 package backend.databaseManager;
 
 import backend.models.*;
+import backend.models.Student.studentCourseInfo;
 import backend.models.parents.User;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 
 public class UsersDatabaseManager {
-    private ArrayList<User> users;
+    // PRIMARY INDEX userId -> User (INSERTION ORDER = FILE ORDER)
+    // the stored objects are never handed out directly, callers always receive a copy
+    private LinkedHashMap<String, User> users;
+    // SECONDARY INDEX lower-cased email -> userId
+    private HashMap<String, String> userIdsByEmail;
+    // PROJECTION userId -> username KEPT IN SYNC WITH THE INDEXES, READ WITHOUT THE LOCK
+    // (course tables show instructor names without copying User objects)
+    private final ConcurrentHashMap<String, String> usernames = new ConcurrentHashMap<String, String>();
     private ReadWrite db;
     private final String USERS_FILE = "data/DatabaseJSONFiles/users.json";
+    // SNAPSHOT ACTUALLY USED (A BINARY users.bin NEXT TO THE JSON FILE WINS)
+    private String usersFile;
+    // MUTATIONS ARE APPENDED TO THE JOURNAL AND FOLDED INTO THE SNAPSHOT PERIODICALLY
+    // single changes are coalesced and journaled in the background by the scheduler.
+    // the cursor follows the records other app instances append to the shared journal
+    private Journal journal;
+    private Journal.Cursor cursor;
+    private PersistenceScheduler scheduler;
+    private int journalRecords;
+    private static final String STORE = "users";
+    private static final int COMPACTION_THRESHOLD = 200;
+    private static final String ID_PREFIX = "U";
+    // VERSION OF THE STORE, MOVES ON EVERY ADD / UPDATE
+    private long version;
+
+    // SINGLE PROCESS-WIDE INSTANCE SHARED BY EVERY SERVICE AND SCREEN
+    // (ONE COPY OF THE USERS IN MEMORY, WRITES ARE SEEN BY EVERYONE AT ONCE)
+    private static UsersDatabaseManager instance;
+
+    // RETURNS THE SHARED INSTANCE, THE FILE IS LOADED ON THE FIRST CALL ONLY
+    public static synchronized UsersDatabaseManager getInstance() {
+        if (instance == null) {
+            instance = new UsersDatabaseManager();
+        }
+        return instance;
+    }
 
     // CLASS CONSTRUCTOR and INITIALIZER (READS THE FILE OR CREATES A NEW ONE IF NOT
-    // EXIST)
-    public UsersDatabaseManager() {
+    // EXIST), USE getInstance()
+    private UsersDatabaseManager() {
+
+        db = ReadWrite.getInstance();
+        users = new LinkedHashMap<String, User>();
+        userIdsByEmail = new HashMap<String, String>();
+        scheduler = PersistenceScheduler.getInstance();
+        scheduler.register(STORE, this::flushDirty);
+        journal = Journal.getInstance();
+        cursor = journal.cursor(STORE, this::replay, this::reload);
+        // the snapshot and the records after its checkpoint are read under one journal lock,
+        // so no other instance can compact in between
+        FileLocks.Handle lock = journal.lockShared();
+        try {
+            loadSnapshot();
+            journal.catchUp(cursor);
+        } finally {
+            lock.close();
+        }
+        // new ids continue after the highest one in use
+        IdAllocator.getInstance().seed(ID_PREFIX, users.keySet());
+    }
+
+    // READS THE SNAPSHOT INTO THE INDEXES (CALLER HOLDS THE JOURNAL LOCK)
+    private void loadSnapshot() {
+        usersFile = db.resolveSnapshot(USERS_FILE);
+        // users are streamed straight into the indexes one at a time
+        if (db.forEachInFile(usersFile, User.class, this::load) < 0) {
+            // the live file is broken, readFromFile falls back to the previous generation
+            users.clear();
+            userIdsByEmail.clear();
+            usernames.clear();
+            ArrayList<User> loaded = db.readFromFile(usersFile, User.class);
+            for (int i = 0; i < loaded.size(); i++) {
+                load(loaded.get(i));
+            }
+        }
+    }
 
-        db = new ReadWrite();
-        users = db.readFromFile(USERS_FILE, User.class);
+    // APPLIES ONE JOURNAL RECORD (ON LOAD, OR APPENDED BY ANOTHER APP INSTANCE)
+    // a user changed here and not journaled yet keeps its local state, it is journaled later and wins
+    private void replay(JsonObject record) {
+        String op = record.get("op").getAsString();
+        String userId = record.get("id").getAsString();
+        journalRecords++;
+        if (Journal.OP_PUT.equals(op) || Journal.OP_DELETE.equals(op)) {
+            if (scheduler.isPending(STORE, userId)) {
+                return;
+            }
+        }
+        version++;
+        if (Journal.OP_DELETE.equals(op)) {
+            unindex(userId);
+        } else if (Journal.OP_ATTEMPT.equals(op)) {
+            User user = users.get(userId);
+            if (user instanceof Student) {
+                applyAttempt((Student) user, record.getAsJsonObject("data"));
+            }
+        } else if (Journal.OP_SCORES.equals(op)) {
+            User user = users.get(userId);
+            if (user instanceof Student) {
+                applyScores((Student) user, record.getAsJsonObject("data"));
+            }
+        } else if (Journal.OP_CERTIFICATE.equals(op)) {
+            User user = users.get(userId);
+            if (user instanceof Student) {
+                applyCertificate((Student) user, record.getAsJsonObject("data"));
+            }
+        } else {
+            User user = db.fromJsonTree(record.get("data"), User.class);
+            if (user != null) {
+                index(user);
+            }
+        }
+    }
+
+    // ANOTHER APP INSTANCE COMPACTED THE USERS: RE-READS THE SNAPSHOT IT WROTE
+    // (CALLED BY THE JOURNAL WHILE THE LOCKS ARE HELD), USERS NOT JOURNALED YET ARE KEPT
+    private void reload() {
+        LinkedHashMap<String, User> previous = users;
+        users = new LinkedHashMap<String, User>();
+        userIdsByEmail = new HashMap<String, String>();
+        usernames.clear();
+        loadSnapshot();
+        for (String userId : scheduler.pendingIds(STORE)) {
+            User user = previous.get(userId);
+            if (user != null) {
+                index(user);
+            } else {
+                unindex(userId);
+            }
+        }
+        version++;
+        journalRecords = 0;
+        IdAllocator.getInstance().seed(ID_PREFIX, users.keySet());
+    }
+
+    // REPLAYS WHAT OTHER APP INSTANCES JOURNALED, AT MOST ONCE PER REFRESH INTERVAL (CALLER HOLDS THE LOCK)
+    private void refreshIfDue() {
+        if (journal.hasNews(cursor)) {
+            FileLocks.Handle lock = journal.lockShared();
+            try {
+                journal.catchUp(cursor);
+            } finally {
+                lock.close();
+            }
+        }
+    }
+
+    // USED BY UnitOfWork TO JOURNAL USER RECORDS WITH THIS STORE'S CURSOR
+    Journal.Cursor journalCursor() {
+        return cursor;
+    }
+
+    // PUTS A USER READ FROM THE SNAPSHOT IN THE INDEXES
+    private void load(User user) {
+        if (user != null && user.getUserId() != null) {
+            index(user);
+        }
     }
 
     // METHOD TO SEARCH AND RETURN THE USER IF EXIST IN THE DB
-    public User getUser(String userId) {
+    public synchronized User getUser(String userId) {
         try {
+            refreshIfDue();
             if (userId == null) {
                 return null;
             }
-            if (this.users.size() == 0) {
-                return null; // No users in the database
-            }
-            for (int i = 0; i < this.users.size(); i++) {
-                User tempUser = this.users.get(i);
-                if (tempUser.getUserId().equals(userId)) {
-                    // the line written under here is to make an new instance of users array
-                    // as editing the object passed as a reference may alter the data in the array
-                    // so to prevent that we make a new instance of the array
-                    this.users = db.readFromFile(USERS_FILE, User.class);
-                    if (tempUser.getRole().equals("student")) {
-                        return ((Student) tempUser);
-                    } else if (tempUser.getRole().equals("instructor")) {
-                        return ((Instructor) tempUser);
-                    } else if (tempUser.getRole().equals("admin")) {
-                        return ((Admin) tempUser);
-                    }
+            // a copy is returned as editing the object passed as a reference
+            // would otherwise alter the data held in the index
+            return copyOf(this.users.get(userId));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // BATCH LOOKUP: COPIES OF THE GIVEN USERS IN ONE PASS (ONE LOCK, EACH ID COPIED ONCE)
+    // keyed by userId in the order asked, unknown ids are left out
+    public synchronized LinkedHashMap<String, User> getUsers(Collection<String> userIds) {
+        refreshIfDue();
+        LinkedHashMap<String, User> found = new LinkedHashMap<String, User>();
+        if (userIds == null) {
+            return found;
+        }
+        for (String userId : userIds) {
+            if (userId != null && !found.containsKey(userId)) {
+                User user = users.get(userId);
+                if (user != null) {
+                    found.put(userId, copyOf(user));
                 }
             }
-            return null;
+        }
+        return found;
+    }
+
+    // METHOD TO SEARCH AND RETURN THE USER WITH THE GIVEN EMAIL (CASE INSENSITIVE)
+    public synchronized User getUserByEmail(String email) {
+        try {
+            refreshIfDue();
+            if (email == null) {
+                return null;
+            }
+            String id = userIdsByEmail.get(email.toLowerCase());
+            return id != null ? copyOf(this.users.get(id)) : null;
         } catch (Exception e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    // RETURNS TRUE IF AN ACCOUNT ALREADY USES THIS EMAIL (CASE INSENSITIVE)
+    public synchronized boolean emailExists(String email) {
+        refreshIfDue();
+        return email != null && userIdsByEmail.containsKey(email.toLowerCase());
+    }
+
     // METHOD TO ADD A USER (USED AT SIGNUP FUNCTIONALITY ONLY) AND RETURN THE
     // GENERATED ID (Changes saved permanently)
-    public String addUser(User newUser) {
+    public synchronized String addUser(User newUser) {
         try {
             if (newUser == null) {
                 return "";
             }
             String id = generateId();
             newUser.setUserId(id);
-            User user = newUser;
-            this.users.add(user);
-            SaveUsersToFile();
+            User user = copyOf(newUser);
+            index(user);
+            markDirty(user.getUserId());
             return id;
         } catch (Exception e) {
             e.printStackTrace();
@@ -70,21 +257,12 @@ public class UsersDatabaseManager {
     }
 
     // USED TO UPDATE THE USER DETAILS;
-    public void update(User updatedUser) {
+    public synchronized void update(User updatedUser) {
         try {
             if (updatedUser != null) {
-                boolean found = false;
-                String id = updatedUser.getUserId();
-                for (int i = 0; i < users.size(); i++) {
-                    if (users.get(i).getUserId().equals(id)) {
-                        found = true;
-                        users.set(i, updatedUser);
-                        SaveUsersToFile();
-                    }
-                }
-                if (!found) {
-                    users.add(updatedUser);
-                }
+                User user = copyOf(updatedUser);
+                index(user);
+                markDirty(user.getUserId());
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -92,33 +270,414 @@ public class UsersDatabaseManager {
     }
 
     // METHOD TO SAVE USERS TO FILE
-    public void SaveUsersToFile() {
+    // every change is journaled by the scheduler (PersistenceScheduler.flush() waits for it),
+    // the snapshot is only rewritten once the journal has grown past the compaction threshold
+    public synchronized void SaveUsersToFile() {
+        if (journalRecords >= COMPACTION_THRESHOLD || journal.holdsBack(cursor)) {
+            compact();
+        }
+    }
+
+    // WRITES THE FULL SNAPSHOT AND MOVES THE USERS CHECKPOINT OF THE JOURNAL
+    // the exclusive journal lock is held from the replay of the other instances' records until
+    // the checkpoint is written, so no record appended meanwhile can be left out of the snapshot.
+    // the checkpoint only moves once the new snapshot is on disk, the journal is the only
+    // durable copy of the changes made since the previous snapshot
+    public synchronized void compact() {
+        FileLocks.Handle lock = journal.lockExclusive();
         try {
-            db.writeToFile(USERS_FILE, users);
-            // updates the users array
-            this.users = db.readFromFile(USERS_FILE, User.class);
+            if (journal.catchUp(cursor) < 0
+                    || !db.writeToFile(usersFile, new ArrayList<User>(users.values()))) {
+                System.out.println("Users NOT saved successfully to file, the journal is kept.");
+                return;
+            }
+            journal.checkpoint(cursor);
+            journalRecords = 0;
             System.out.println("Users saved successfully to file.");
         } catch (Exception e) {
             e.printStackTrace();
             System.out.println("Users NOT saved successfully to file.");
+        } finally {
+            lock.close();
+        }
+    }
+
+    // THE CHANGE IS IN MEMORY NOW, THE SCHEDULER JOURNALS IT WITH THE NEXT FLUSH
+    private void markDirty(String userId) {
+        version++;
+        scheduler.markDirty(STORE, userId);
+    }
+
+    // JOURNALS THE CURRENT STATE OF THE GIVEN USERS AS ONE GROUP (CALLED BY THE SCHEDULER)
+    // returns the number of records written, -1 if the append failed
+    // the records of other instances are replayed first, so the deltas they hold are in the state written
+    private synchronized int flushDirty(ArrayList<String> userIds) {
+        FileLocks.Handle lock = journal.lockExclusive();
+        try {
+            if (journal.catchUp(cursor) < 0) {
+                return -1;
+            }
+            ArrayList<JsonObject> records = new ArrayList<JsonObject>(userIds.size());
+            for (String userId : userIds) {
+                User user = users.get(userId);
+                if (user != null) {
+                    records.add(Journal.put(STORE, userId, db.toJsonTree(user)));
+                } else {
+                    records.add(Journal.delete(STORE, userId));
+                }
+            }
+            if (!journal.append(records, cursor)) {
+                return -1;
+            }
+            journalRecords += records.size();
+            return records.size();
+        } finally {
+            lock.close();
         }
     }
 
-    // METHOD TO GENERATE A UNIQUE ID
+    // HOOKS USED BY UnitOfWork: THE RECORDS ARE JOURNALED BY THE UNIT OF WORK FIRST,
+    // THE CHANGE IS ONLY APPLIED IN MEMORY ONCE THAT APPEND IS DURABLE (CALLER HOLDS THE LOCK)
+    JsonObject stagedPutRecord(User user) {
+        return Journal.put(STORE, user.getUserId(), db.toJsonTree(user));
+    }
+
+    void applyPut(User user) {
+        index(copyOf(user));
+        version++;
+        journalRecords++;
+    }
+
+    // USERNAME OF A USER (null IF UNKNOWN), NO LOCK AND NO COPY OF THE USER
+    public String getUsername(String userId) {
+        return userId != null ? usernames.get(userId) : null;
+    }
+
+    // RECORDS ONE QUIZ ATTEMPT OF A STUDENT WITH A SINGLE SMALL APPEND (ONLY THE DELTA, NOT THE
+    // WHOLE STUDENT), THEN APPLIES IT IN MEMORY. completed marks the lesson as done and a
+    // certificate (null if none) is issued with the same record. answers (questionId -> answer,
+    // null if not kept) are stored with the attempt so it can be regraded later.
+    // returns false if nothing was recorded (unknown student, not enrolled or the append failed)
+    public synchronized boolean recordQuizAttempt(String studentId, String courseId, String lessonId, int score,
+            Map<String, String> answers, boolean completed, Certificate certificate) {
+        // the records of other instances are replayed first and nothing can be appended until this one is
+        FileLocks.Handle lock = journal.lockExclusive();
+        try {
+            if (journal.catchUp(cursor) < 0) {
+                return false;
+            }
+            User user = users.get(studentId);
+            if (!(user instanceof Student) || !((Student) user).isEnrolled(courseId) || lessonId == null) {
+                System.out.println("recordQuizAttempt: student not found or not enrolled in course ID:" + courseId);
+                return false;
+            }
+            Student student = (Student) user;
+            ArrayList<Integer> attempts = student.getEnrolledCourses().get(courseId).getQuizAttempts().get(lessonId);
+            JsonObject data = new JsonObject();
+            data.addProperty("courseId", courseId);
+            data.addProperty("lessonId", lessonId);
+            // position of the attempt, makes replaying the record idempotent
+            data.addProperty("attempt", (attempts != null ? attempts.size() : 0) + 1);
+            data.addProperty("score", score);
+            if (answers != null) {
+                data.add("answers", db.toJsonTree(answers));
+            }
+            data.addProperty("completed", completed);
+            if (certificate != null) {
+                data.add("certificate", db.toJsonTree(certificate));
+            }
+            if (!journal.append(Collections.singletonList(Journal.attempt(STORE, studentId, data)), cursor)) {
+                return false;
+            }
+            applyAttempt(student, data);
+            version++;
+            journalRecords++;
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            lock.close();
+        }
+    }
+
+    // APPLIES AN ATTEMPT RECORD TO THE STORED STUDENT (SKIPPED IF THE SNAPSHOT ALREADY HOLDS IT)
+    private void applyAttempt(Student student, JsonObject data) {
+        String courseId = data.get("courseId").getAsString();
+        String lessonId = data.get("lessonId").getAsString();
+        studentCourseInfo info = student.getEnrolledCourses().get(courseId);
+        if (info == null) {
+            return;
+        }
+        ArrayList<Integer> attempts = info.getQuizAttempts().get(lessonId);
+        if ((attempts != null ? attempts.size() : 0) < data.get("attempt").getAsInt()) {
+            HashMap<String, String> answers = null;
+            if (data.has("answers")) {
+                answers = new HashMap<String, String>();
+                for (Map.Entry<String, JsonElement> answer : data.getAsJsonObject("answers").entrySet()) {
+                    answers.put(answer.getKey(), answer.getValue().getAsString());
+                }
+            }
+            info.addQuizAttempt(lessonId, data.get("score").getAsInt(), answers);
+        }
+        if (data.get("completed").getAsBoolean()) {
+            info.markLessonComplete(lessonId);
+        }
+        if (data.has("certificate") && info.getCertificate() == null) {
+            student.addCertificate(courseId, db.fromJsonTree(data.get("certificate"), Certificate.class));
+        }
+    }
+
+    // REGRADES ONE QUIZ FOR A BATCH OF STUDENTS AGAINST THE GIVEN ANSWER KEY
+    // the students are graded in parallel on the pool while the lock is held (no copies, no
+    // writer can interleave), the new scores of the changed students are journaled as one
+    // append of SCORES records and only applied in memory once that append succeeded.
+    // attempts without stored answers keep their score. returns the number of students whose
+    // scores changed, -1 if the append failed (nothing changed then)
+    public synchronized int regradeQuizAttempts(List<String> studentIds, String courseId, String lessonId,
+            CompiledQuiz quiz, ForkJoinPool pool) {
+        // the records of other instances are replayed first and nothing can be appended until this one is
+        FileLocks.Handle lock = journal.lockExclusive();
+        try {
+            if (journal.catchUp(cursor) < 0) {
+                return -1;
+            }
+            Student[] students = new Student[studentIds.size()];
+            int count = 0;
+            for (String studentId : studentIds) {
+                User user = users.get(studentId);
+                if (user instanceof Student && ((Student) user).isEnrolled(courseId)) {
+                    students[count++] = (Student) user;
+                }
+            }
+            int[][] regraded = new int[count][];
+            // one scratch buffer per leaf, reused for every attempt it encodes
+            pool.invoke(new EachStudentTask<int[]>(students, regraded, 0, count, () -> {
+                int[] codes = new int[quiz.getQuestionCount()];
+                return student -> {
+                    studentCourseInfo info = student.getEnrolledCourses().get(courseId);
+                    return info != null ? info.regradedScores(lessonId, quiz, codes) : null;
+                };
+            }));
+
+            ArrayList<JsonObject> records = new ArrayList<JsonObject>();
+            ArrayList<JsonObject> changes = new ArrayList<JsonObject>();
+            ArrayList<Student> changed = new ArrayList<Student>();
+            for (int i = 0; i < count; i++) {
+                if (regraded[i] == null) {
+                    continue;
+                }
+                JsonObject data = new JsonObject();
+                data.addProperty("courseId", courseId);
+                data.addProperty("lessonId", lessonId);
+                data.add("scores", db.toJsonTree(regraded[i]));
+                records.add(Journal.scores(STORE, students[i].getUserId(), data));
+                changes.add(data);
+                changed.add(students[i]);
+            }
+            if (records.isEmpty()) {
+                return 0;
+            }
+            if (!journal.append(records, cursor)) {
+                return -1;
+            }
+            for (int i = 0; i < changed.size(); i++) {
+                applyScores(changed.get(i), changes.get(i));
+            }
+            version++;
+            journalRecords += records.size();
+            return changed.size();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            lock.close();
+        }
+    }
+
+    // ISSUES CERTIFICATES OF ONE COURSE FOR A BATCH OF STUDENTS
+    // issuer decides for one stored student (read only, called in parallel on the pool while
+    // the lock is held) and returns the certificate to issue or null. the certificates are
+    // journaled as one append of CERTIFICATE records and only applied in memory once that
+    // append succeeded. returns the certificates issued, null if the append failed
+    public synchronized ArrayList<Certificate> issueCertificates(Collection<String> studentIds, String courseId,
+            Function<Student, Certificate> issuer, ForkJoinPool pool) {
+        // the records of other instances are replayed first and nothing can be appended until this one is
+        FileLocks.Handle lock = journal.lockExclusive();
+        try {
+            if (journal.catchUp(cursor) < 0) {
+                return null;
+            }
+            Student[] students = new Student[studentIds.size()];
+            int count = 0;
+            for (String studentId : studentIds) {
+                User user = users.get(studentId);
+                if (user instanceof Student && ((Student) user).isEnrolled(courseId)) {
+                    students[count++] = (Student) user;
+                }
+            }
+            Certificate[] certificates = new Certificate[count];
+            pool.invoke(new EachStudentTask<Certificate>(students, certificates, 0, count, () -> issuer));
+
+            ArrayList<JsonObject> records = new ArrayList<JsonObject>();
+            ArrayList<JsonObject> changes = new ArrayList<JsonObject>();
+            ArrayList<Student> changed = new ArrayList<Student>();
+            ArrayList<Certificate> issued = new ArrayList<Certificate>();
+            for (int i = 0; i < count; i++) {
+                if (certificates[i] == null) {
+                    continue;
+                }
+                JsonObject data = new JsonObject();
+                data.addProperty("courseId", courseId);
+                data.add("certificate", db.toJsonTree(certificates[i]));
+                records.add(Journal.certificate(STORE, students[i].getUserId(), data));
+                changes.add(data);
+                changed.add(students[i]);
+                issued.add(certificates[i]);
+            }
+            if (records.isEmpty()) {
+                return issued;
+            }
+            if (!journal.append(records, cursor)) {
+                return null;
+            }
+            for (int i = 0; i < changed.size(); i++) {
+                applyCertificate(changed.get(i), changes.get(i));
+            }
+            version++;
+            journalRecords += records.size();
+            return issued;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            lock.close();
+        }
+    }
+
+    // RUNS A READ-ONLY FUNCTION OVER A RANGE OF STORED STUDENTS, SPLITS UNTIL THE RANGE IS SMALL
+    // ENOUGH FOR ONE WORKER. the function is created once per leaf so it can hold scratch buffers
+    private static class EachStudentTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int LEAF_SIZE = 256;
+        private final Student[] students;
+        private final T[] results;
+        private final int from;
+        private final int to;
+        private final Supplier<Function<Student, T>> work;
+
+        EachStudentTask(Student[] students, T[] results, int from, int to, Supplier<Function<Student, T>> work) {
+            this.students = students;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new EachStudentTask<T>(students, results, from, middle, work),
+                        new EachStudentTask<T>(students, results, middle, to, work));
+                return;
+            }
+            Function<Student, T> function = work.get();
+            for (int i = from; i < to; i++) {
+                results[i] = function.apply(students[i]);
+            }
+        }
+    }
+
+    // APPLIES A CERTIFICATE RECORD TO THE STORED STUDENT (A CERTIFICATE ALREADY HELD IS KEPT)
+    private void applyCertificate(Student student, JsonObject data) {
+        String courseId = data.get("courseId").getAsString();
+        studentCourseInfo info = student.getEnrolledCourses().get(courseId);
+        if (info != null && info.getCertificate() == null) {
+            student.addCertificate(courseId, db.fromJsonTree(data.get("certificate"), Certificate.class));
+        }
+    }
+
+    // APPLIES A SCORES RECORD TO THE STORED STUDENT
+    private void applyScores(Student student, JsonObject data) {
+        studentCourseInfo info = student.getEnrolledCourses().get(data.get("courseId").getAsString());
+        if (info == null) {
+            return;
+        }
+        JsonArray values = data.getAsJsonArray("scores");
+        int[] scores = new int[values.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = values.get(i).getAsInt();
+        }
+        info.setQuizScores(data.get("lessonId").getAsString(), scores);
+    }
+
+    // CURRENT VERSION OF THE USERS STORE (COMPARE WITH A SAVED VALUE TO DETECT CHANGES)
+    public synchronized long getVersion() {
+        refreshIfDue();
+        return version;
+    }
+
+    // METHOD TO GENERATE A UNIQUE ID (NEVER REUSED, NO LOCK OR FILE READ NEEDED)
     public String generateId() {
-        return "U" + String.format("%d", this.users.size() + 1);
+        return IdAllocator.getInstance().nextId(ID_PREFIX);
     }
 
     // METHOD TO RETURN ALL USERS JSON ARRAY (FOR VALIDATION PURPOSES)
-    public ArrayList<User> getAllUsers() {
-        ArrayList<User> tempUsers = this.users;
-        this.users = db.readFromFile(USERS_FILE, User.class);
+    public synchronized ArrayList<User> getAllUsers() {
+        refreshIfDue();
+        ArrayList<User> tempUsers = new ArrayList<User>(users.size());
+        for (User user : users.values()) {
+            tempUsers.add(copyOf(user));
+        }
         return tempUsers;
     }
 
+    // PUTS THE USER IN THE PRIMARY INDEX AND KEEPS THE EMAIL INDEX IN SYNC
+    private void index(User user) {
+        User previous = users.put(user.getUserId(), user);
+        if (user.getUsername() != null) {
+            usernames.put(user.getUserId(), user.getUsername());
+        } else {
+            usernames.remove(user.getUserId());
+        }
+        if (previous != null && previous.getEmail() != null) {
+            String oldEmail = previous.getEmail().toLowerCase();
+            if (user.getUserId().equals(userIdsByEmail.get(oldEmail))) {
+                userIdsByEmail.remove(oldEmail);
+            }
+        }
+        if (user.getEmail() != null) {
+            // the first account registered with an email keeps it
+            userIdsByEmail.putIfAbsent(user.getEmail().toLowerCase(), user.getUserId());
+        }
+    }
+
+    // REMOVES THE USER FROM BOTH INDEXES
+    private void unindex(String userId) {
+        User previous = users.remove(userId);
+        usernames.remove(userId);
+        if (previous != null && previous.getEmail() != null
+                && userId.equals(userIdsByEmail.get(previous.getEmail().toLowerCase()))) {
+            userIdsByEmail.remove(previous.getEmail().toLowerCase());
+        }
+    }
+
+    // RETURNS A DEEP COPY OF THE USER WITH ITS CONCRETE TYPE
+    static User copyOf(User user) {
+        if (user instanceof Student) {
+            return new Student((Student) user);
+        } else if (user instanceof Instructor) {
+            return new Instructor((Instructor) user);
+        } else if (user instanceof Admin) {
+            return new Admin((Admin) user);
+        }
+        return null;
+    }
+
     // For testing purposes only
     public static void main(String[] args) {
-        UsersDatabaseManager usersDB = new UsersDatabaseManager();
+        UsersDatabaseManager usersDB = UsersDatabaseManager.getInstance();
         User user1 = new Student("AYmen", "email", "passwordHash");
         User user2 = new Student("Gamal", "email2", "passwordHash2");
         User user3 = new Instructor("3aa", "email2", "passwordHash2");
@@ -133,7 +692,7 @@ public class UsersDatabaseManager {
         usersDB.addUser(user4);
         usersDB.SaveUsersToFile();
 
-        usersDB = new UsersDatabaseManager();
+        usersDB = UsersDatabaseManager.getInstance();
         ((Instructor) user3).setCreatedCourses(courses);
         usersDB.update(user3);
         usersDB.SaveUsersToFile();
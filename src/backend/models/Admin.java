@@ -16,5 +16,10 @@ public class Admin extends User {
         super("admin", username, email, passwordHash);
     }
 
+    // Copy constructor
+    public Admin(Admin other) {
+        super(other);
+    }
+
 }    
 
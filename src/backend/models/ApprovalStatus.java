@@ -0,0 +1,25 @@
+package backend.models;
+
+// APPROVAL STATES OF A COURSE (Course KEEPS THE NAME AS A STRING SO THE JSON FILES DO NOT CHANGE)
+public enum ApprovalStatus {
+    PENDING,
+    APPROVED,
+    REJECTED;
+
+    // RETURNS THE STATUS MATCHING THE STORED STRING, null IF IT IS NOT A KNOWN STATUS
+    public static ApprovalStatus of(String status) {
+        if (status == null) {
+            return null;
+        }
+        switch (status) {
+            case "PENDING":
+                return PENDING;
+            case "APPROVED":
+                return APPROVED;
+            case "REJECTED":
+                return REJECTED;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package backend.models;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// GRADING FORM OF A QUIZ (ANSWER KEY COMPILED TO OPTION INDEXES)
+// answers are encoded once to option indexes, grading is then a plain int loop with no
+// string compare and no allocation, so historical attempts can be regraded in bulk.
+// the compiled form is a copy: build a new one after the quiz or its answer key changes
+public class CompiledQuiz {
+
+    // CODE OF AN ANSWER THAT IS NOT ONE OF THE QUESTION OPTIONS (NEVER CORRECT)
+    public static final int NO_ANSWER = -1;
+
+    private final String quizId;
+    private final String lessonId;
+    // per question: answer sheet key, option text -> index, the correct option index and the points
+    private final String[] sheetKeys;
+    private final HashMap<String, Integer>[] optionIndexes;
+    private final int[] correct;
+    private final int[] points;
+    private final int totalPoints;
+    private final int passingScore;
+
+    // SCORE, PERCENTAGE AND PASS / FAIL OF ONE ATTEMPT
+    public static class Grade {
+        private final int score;
+        private final double percentage;
+        private final boolean passed;
+
+        Grade(int score, double percentage, boolean passed) {
+            this.score = score;
+            this.percentage = percentage;
+            this.passed = passed;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public double getPercentage() {
+            return percentage;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompiledQuiz(Quiz quiz) {
+        this.quizId = quiz.getQuizId();
+        this.lessonId = quiz.getLessonId();
+        this.passingScore = quiz.getPassingScore();
+        List<Question> questions = quiz.getQuestions();
+        int count = questions.size();
+        this.sheetKeys = new String[count];
+        this.optionIndexes = (HashMap<String, Integer>[]) new HashMap<?, ?>[count];
+        this.correct = new int[count];
+        this.points = new int[count];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            Question question = questions.get(i);
+            // the question id, or the position for a question without an id of its own
+            // (older quizzes can repeat ids), so every question keeps its own answer
+            String questionId = question.getQuestionId();
+            boolean repeated = false;
+            for (int j = 0; j < i && questionId != null && !repeated; j++) {
+                repeated = questionId.equals(sheetKeys[j]);
+            }
+            sheetKeys[i] = questionId != null && !repeated ? questionId : "#" + i;
+            HashMap<String, Integer> indexes = new HashMap<String, Integer>();
+            if (question.getOptions() != null) {
+                for (String option : question.getOptions()) {
+                    if (option != null) {
+                        indexes.putIfAbsent(option, indexes.size());
+                    }
+                }
+            }
+            // a correct option missing from the options still matches an answer with its text
+            String correctOption = question.getCorrectOption();
+            if (correctOption != null) {
+                indexes.putIfAbsent(correctOption, indexes.size());
+            }
+            optionIndexes[i] = indexes;
+            correct[i] = correctOption != null ? indexes.get(correctOption) : NO_ANSWER;
+            points[i] = question.getPoints();
+            total += points[i];
+        }
+        this.totalPoints = total;
+    }
+
+    public String getQuizId() {
+        return quizId;
+    }
+
+    public String getLessonId() {
+        return lessonId;
+    }
+
+    public int getQuestionCount() {
+        return correct.length;
+    }
+
+    public int getTotalPoints() {
+        return totalPoints;
+    }
+
+    // ENCODES THE ANSWER TEXTS TO OPTION INDEXES (null IF THE COUNT DOES NOT MATCH THE QUESTIONS)
+    public int[] encode(List<String> answers) {
+        if (answers == null || answers.size() != correct.length) {
+            return null;
+        }
+        int[] codes = new int[correct.length];
+        for (int i = 0; i < codes.length; i++) {
+            Integer index = answers.get(i) != null ? optionIndexes[i].get(answers.get(i)) : null;
+            codes[i] = index != null ? index : NO_ANSWER;
+        }
+        return codes;
+    }
+
+    // ANSWER SHEET KEYED BY QUESTION ID (null IF THE COUNT DOES NOT MATCH THE QUESTIONS)
+    // this is the form attempts are stored in: it stays gradable after questions are
+    // reordered, removed or added (a question the attempt never saw is unanswered)
+    public HashMap<String, String> answerSheet(List<String> answers) {
+        if (answers == null || answers.size() != correct.length) {
+            return null;
+        }
+        HashMap<String, String> sheet = new HashMap<String, String>(correct.length * 2);
+        for (int i = 0; i < correct.length; i++) {
+            if (answers.get(i) != null) {
+                sheet.put(sheetKeys[i], answers.get(i));
+            }
+        }
+        return sheet;
+    }
+
+    // ENCODES AN ANSWER SHEET INTO codes AT offset (getQuestionCount() ints), NO ALLOCATION
+    public void encode(Map<String, String> sheet, int[] codes, int offset) {
+        for (int i = 0; i < correct.length; i++) {
+            String answer = sheet != null ? sheet.get(sheetKeys[i]) : null;
+            Integer index = answer != null ? optionIndexes[i].get(answer) : null;
+            codes[offset + i] = index != null ? index : NO_ANSWER;
+        }
+    }
+
+    // SCORE OF ENCODED ANSWERS, 0 IF THE COUNT DOES NOT MATCH THE QUESTIONS
+    public int score(int[] codes) {
+        if (codes == null || codes.length != correct.length) {
+            return 0;
+        }
+        return score(codes, 0);
+    }
+
+    // SCORE OF ONE ATTEMPT STORED AT offset IN A PACKED ARRAY OF ATTEMPTS
+    // (getQuestionCount() codes per attempt), allocation free for bulk regrading
+    public int score(int[] packed, int offset) {
+        int score = 0;
+        for (int i = 0; i < correct.length; i++) {
+            if (packed[offset + i] == correct[i]) {
+                score += points[i];
+            }
+        }
+        return score;
+    }
+
+    // PERCENTAGE OF THE TOTAL POINTS, 0 FOR A QUIZ WITHOUT POINTS
+    public double percentage(int score) {
+        return totalPoints == 0 ? 0.0 : (score * 100.0) / totalPoints;
+    }
+
+    public boolean passes(int score) {
+        return percentage(score) >= passingScore;
+    }
+
+    // GRADES ENCODED ANSWERS IN ONE CALL
+    public Grade grade(int[] codes) {
+        int score = score(codes);
+        return new Grade(score, percentage(score), passes(score));
+    }
+
+    // GRADES ANSWER TEXTS IN ONE CALL (SAME RESULT AS Quiz.calculateScore / isPassed)
+    public Grade grade(List<String> answers) {
+        return grade(encode(answers));
+    }
+}
@@ -1,6 +1,10 @@
 package backend.models;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class Course {
     private String courseId;
@@ -11,6 +15,23 @@ public class Course {
     private ArrayList<String> students;
     private String approvalStatus; // PENDING, APPROVED, REJECTED
     private String approvedBy; // id of admin who approved the course
+    private int nextLessonNumber; // only moves forward, ids of removed lessons are never reused
+    // MEMBERSHIP INDEX OF students, NOT SERIALIZED (THE LIST KEEPS THE JSON / ENROLLMENT ORDER)
+    // built on first use, copied with the course and dropped by setStudents. the roster is only
+    // changed through addStudent / setStudents (getStudents is read only), so it never goes stale
+    private transient HashSet<String> studentSet;
+    // LINEAGE OF THE ROSTER, NOT SERIALIZED, TELLS WHAT CHANGED SINCE AN EARLIER VERSION WITHOUT COMPARING
+    // rosterStamp is replaced on every change of the roster and kept by the copy constructor, so two
+    // courses with the same stamp have the same roster. baseStamp / baseSize are the stamp and size of
+    // the roster this one has only appended to (addStudent) since, null if unknown (setStudents)
+    private transient Object rosterStamp = new Object();
+    private transient Object baseStamp;
+    private transient int baseSize;
+    private transient boolean appended; // base already taken by this object
+
+    // USED BY GSON, FIELDS ARE FILLED FROM THE FILE (THE ROSTER GETS ITS OWN STAMP)
+    private Course() {
+    }
 
     // CLASS CONSTRUCTOR IN CASE OF DESCRIPTION IS GIVEN
     public Course(String courseId, String title, String instructorId, String description) {
@@ -35,6 +56,29 @@ public class Course {
         this.approvedBy = null;
     }
 
+    // COPY CONSTRUCTOR (DEEP COPY, LESSONS AND STUDENTS ARE NOT SHARED WITH THE ORIGINAL)
+    public Course(Course other) {
+        this.courseId = other.courseId;
+        this.title = other.title;
+        this.instructorId = other.instructorId;
+        this.description = other.description;
+        this.lessons = new ArrayList<Lesson>();
+        if (other.lessons != null) {
+            for (Lesson lesson : other.lessons) {
+                this.lessons.add(lesson != null ? new Lesson(lesson) : null);
+            }
+        }
+        this.students = other.students != null ? new ArrayList<String>(other.students) : new ArrayList<String>();
+        // the copy is enrolled into without rebuilding the index from the roster
+        this.studentSet = other.studentSet != null ? new HashSet<String>(other.studentSet) : null;
+        this.rosterStamp = other.rosterStamp;
+        this.baseStamp = other.baseStamp;
+        this.baseSize = other.baseSize;
+        this.approvalStatus = other.approvalStatus;
+        this.approvedBy = other.approvedBy;
+        this.nextLessonNumber = other.nextLessonNumber;
+    }
+
     // standard getters and setters
     public ArrayList<Lesson> getLessons() {
         return lessons;
@@ -48,12 +92,17 @@ public class Course {
         this.lessons = lessons;
     }
 
-    public ArrayList<String> getStudents() {
-        return students;
+    // READ ONLY VIEW OF THE ROSTER, STUDENTS ARE ADDED WITH addStudent
+    public List<String> getStudents() {
+        return students != null ? Collections.unmodifiableList(students) : null;
     }
 
     public void setStudents(ArrayList<String> students) {
         this.students = students;
+        this.studentSet = null;
+        this.rosterStamp = new Object();
+        this.baseStamp = null;
+        this.appended = true;
     }
 
     public String getCourseId() {
@@ -127,27 +176,92 @@ public class Course {
     }
 
     // METHOD TO GENERATE LESSON ID
+    // the counter is saved with the course, courses saved before it existed start
+    // after the highest lesson number in use
     public String generateLessonId() {
-        return "L" + String.format("%d", this.lessons.size() + 1);
+        int highest = 0;
+        if (lessons != null) {
+            for (Lesson lesson : lessons) {
+                if (lesson != null) {
+                    highest = Math.max(highest, numberAfter(lesson.getLessonId(), "L"));
+                }
+            }
+        }
+        nextLessonNumber = Math.max(nextLessonNumber, highest + 1);
+        return "L" + String.format("%d", nextLessonNumber++);
+    }
+
+    // NUMBER FOLLOWING THE PREFIX OF AN ID ("L12" -> 12), 0 IF IT HAS NO SUCH FORM
+    static int numberAfter(String id, String prefix) {
+        if (id == null || !id.startsWith(prefix)) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(id.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public int getNextLessonNumber() {
+        return nextLessonNumber;
+    }
+
+    public void setNextLessonNumber(int nextLessonNumber) {
+        this.nextLessonNumber = nextLessonNumber;
     }
 
     // adding students to course
     public void addStudent(String studentId) {
         if (studentId == null || studentId.trim().isEmpty())
             return;
-        if (isStudentEnrolled(studentId))
+        if (!studentSet().add(studentId))
             return;
+        if (!appended) {
+            // first enrollment since the copy: the roster so far is the base
+            baseStamp = rosterStamp;
+            baseSize = students.size();
+            appended = true;
+        }
         students.add(studentId);
+        rosterStamp = new Object();
+    }
+
+    // STUDENTS ADDED SINCE previous (AN EARLIER VERSION OF THIS COURSE) WITHOUT COMPARING THE ROSTERS
+    // empty if the roster is the same, the students enrolled with addStudent if this roster grew from
+    // the one of previous, null if unknown (roster replaced, or both grew from a common version)
+    public List<String> getStudentsAddedSince(Course previous) {
+        if (previous == null || students == null) {
+            return null;
+        }
+        if (rosterStamp == previous.rosterStamp) {
+            return Collections.emptyList();
+        }
+        if (baseStamp == previous.rosterStamp && baseSize <= students.size()) {
+            return Collections.unmodifiableList(students.subList(baseSize, students.size()));
+        }
+        return null;
     }
 
-    // return if student is enrolled
+    // return if student is enrolled (hash lookup, does not walk the roster)
     public boolean isStudentEnrolled(String studentId) {
-        for (String id : students) {
-            if (id.equals(studentId)) {
-                return true;
-            }
+        return studentId != null && studentSet().contains(studentId);
+    }
+
+    // READ ONLY VIEW OF THE MEMBERSHIP INDEX (BUILT ON FIRST USE), LETS ROSTERS BE COMPARED BY HASH
+    public Set<String> getStudentSet() {
+        return Collections.unmodifiableSet(studentSet());
+    }
+
+    // RETURNS THE MEMBERSHIP INDEX, BUILDING IT FROM THE ROSTER IF NEEDED
+    private HashSet<String> studentSet() {
+        if (students == null) {
+            students = new ArrayList<String>();
+        }
+        if (studentSet == null) {
+            studentSet = new HashSet<String>(students);
         }
-        return false;
+        return studentSet;
     }
 
     // get approval status
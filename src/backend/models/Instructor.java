@@ -19,6 +19,12 @@ public class Instructor extends User {
         super("instructor", username, email, passwordHash);
         this.createdCourses = new ArrayList<String>();}
 
+    //COPY CONSTRUCTOR
+    public Instructor(Instructor other) {
+        super(other);
+        this.createdCourses = other.createdCourses != null
+                ? new ArrayList<String>(other.createdCourses) : new ArrayList<String>();}
+
     //standard getters and setters
     public ArrayList<String> getCreatedCourses() { return createdCourses;}
     public void setCreatedCourses(ArrayList<String> createdCourses) {
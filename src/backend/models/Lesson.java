@@ -28,6 +28,18 @@ public class Lesson {
         this.optionalResources = new ArrayList<String>();
     }
 
+    // COPY CONSTRUCTOR (DEEP COPY OF THE QUIZ AND RESOURCES)
+    public Lesson(Lesson other) {
+        this.lessonId = other.lessonId;
+        this.title = other.title;
+        this.courseId = other.courseId;
+        this.content = other.content;
+        this.quiz = other.quiz != null ? new Quiz(other.quiz) : null;
+        this.optionalResources = other.optionalResources != null
+                ? new ArrayList<String>(other.optionalResources)
+                : new ArrayList<String>();
+    }
+
     // standard getters and setters
     public String getLessonId() {
         return lessonId;
@@ -33,6 +33,16 @@ public class Question {
         this.correctOption = "";
     }
 
+    // COPY CONSTRUCTOR
+    public Question(Question other) {
+        this.questionId = other.questionId;
+        this.questionText = other.questionText;
+        this.options = (other.options != null) ? new ArrayList<>(other.options) : new ArrayList<>();
+        this.correctOption = other.correctOption;
+        this.explanation = other.explanation;
+        this.points = other.points;
+    }
+
     // CLASS CONSTRUCTOR WITH NO EXPLANATION AND DEFAULT POINTS VALUE
     public Question(String questionId, String questionText, ArrayList<String> options, String correctOption) {
         this(questionId, questionText, options, correctOption, "", 1);
@@ -15,6 +15,7 @@ public class Quiz {
     private ArrayList<Question> questions;
     private int passingScore;
     private int maxAttempts;
+    private int nextQuestionNumber; // only moves forward, ids of removed questions are never reused
 
     // CLASS CONSTRUCTOR FOR DEALING WITH JSON FILES
     public Quiz() {
@@ -41,6 +42,23 @@ public class Quiz {
         this.maxAttempts = Math.max(0, maxAttempts);
     } // 0 ATTEMPS MEAN UNLIMITED ATTEMPS
 
+    // COPY CONSTRUCTOR (DEEP COPY OF THE QUESTIONS)
+    public Quiz(Quiz other) {
+        this.quizId = other.quizId;
+        this.lessonId = other.lessonId;
+        this.title = other.title;
+        this.description = other.description;
+        this.questions = new ArrayList<Question>();
+        if (other.questions != null) {
+            for (Question q : other.questions) {
+                this.questions.add(q != null ? new Question(q) : null);
+            }
+        }
+        this.passingScore = other.passingScore;
+        this.maxAttempts = other.maxAttempts;
+        this.nextQuestionNumber = other.nextQuestionNumber;
+    }
+
     // GETTRES AND SETTERS
     public String getQuizId() {
         return quizId;
@@ -142,6 +160,11 @@ public class Quiz {
         return calculatePercentage(answers) >= passingScore;
     }
 
+    // COMPILES THE ANSWER KEY FOR GRADING (SCORE, PERCENTAGE AND PASS IN ONE CALL)
+    public CompiledQuiz compile() {
+        return new CompiledQuiz(this);
+    }
+
     // ADDING QUESTION TO THE QUIZ
     public void addQuestion(Question question) {
         if (question != null) {
@@ -177,7 +200,24 @@ public class Quiz {
             System.out.println("generateQuestionId: questions is null");
             questions = new ArrayList<Question>();
         }
-        return quizId + "-Question" + (questions.size() + 1);
+        // the counter is saved with the quiz, quizzes saved before it existed start
+        // after the highest question number in use
+        int highest = 0;
+        for (Question question : questions) {
+            if (question != null) {
+                highest = Math.max(highest, Course.numberAfter(question.getQuestionId(), quizId + "-Question"));
+            }
+        }
+        nextQuestionNumber = Math.max(nextQuestionNumber, highest + 1);
+        return quizId + "-Question" + (nextQuestionNumber++);
+    }
+
+    public int getNextQuestionNumber() {
+        return nextQuestionNumber;
+    }
+
+    public void setNextQuestionNumber(int nextQuestionNumber) {
+        this.nextQuestionNumber = nextQuestionNumber;
     }
 
     // VALIDATION
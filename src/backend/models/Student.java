@@ -2,6 +2,7 @@ package backend.models;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 import backend.models.parents.User;
 
 public class Student extends User {
@@ -14,6 +15,9 @@ public class Student extends User {
         private ArrayList<String> progress;
         private Certificate certificate;
         private HashMap<String, ArrayList<Integer>> quizAttempts;
+        // SUBMITTED ANSWERS PER ATTEMPT (questionId -> answer), ALIGNED WITH quizAttempts
+        // attempts recorded before answers were kept have a null entry and are never regraded
+        private HashMap<String, ArrayList<HashMap<String, String>>> quizAnswers;
 
         // CLASS CONSTRUCTORS
         public studentCourseInfo(String courseId) {
@@ -21,6 +25,7 @@ public class Student extends User {
             this.progress = new ArrayList<String>();
             this.certificate = null;
             this.quizAttempts = new HashMap<String, ArrayList<Integer>>();
+            this.quizAnswers = new HashMap<String, ArrayList<HashMap<String, String>>>();
         }
 
         public studentCourseInfo(String courseId, ArrayList<String> progress, Certificate certificate,
@@ -29,6 +34,34 @@ public class Student extends User {
             this.progress = progress;
             this.certificate = certificate;
             this.quizAttempts = quizAttempts;
+            this.quizAnswers = new HashMap<String, ArrayList<HashMap<String, String>>>();
+        }
+
+        // COPY CONSTRUCTOR (DEEP COPY OF PROGRESS AND ATTEMPTS)
+        public studentCourseInfo(studentCourseInfo other) {
+            this.courseId = other.courseId;
+            this.progress = other.progress != null ? new ArrayList<String>(other.progress) : new ArrayList<String>();
+            this.certificate = other.certificate != null ? new Certificate(other.certificate) : null;
+            this.quizAttempts = new HashMap<String, ArrayList<Integer>>();
+            if (other.quizAttempts != null) {
+                for (Map.Entry<String, ArrayList<Integer>> entry : other.quizAttempts.entrySet()) {
+                    this.quizAttempts.put(entry.getKey(),
+                            entry.getValue() != null ? new ArrayList<Integer>(entry.getValue()) : null);
+                }
+            }
+            this.quizAnswers = new HashMap<String, ArrayList<HashMap<String, String>>>();
+            if (other.quizAnswers != null) {
+                for (Map.Entry<String, ArrayList<HashMap<String, String>>> entry : other.quizAnswers.entrySet()) {
+                    ArrayList<HashMap<String, String>> answers = null;
+                    if (entry.getValue() != null) {
+                        answers = new ArrayList<HashMap<String, String>>(entry.getValue().size());
+                        for (HashMap<String, String> attempt : entry.getValue()) {
+                            answers.add(attempt != null ? new HashMap<String, String>(attempt) : null);
+                        }
+                    }
+                    this.quizAnswers.put(entry.getKey(), answers);
+                }
+            }
         }
 
         // GETTERS AND SETTERS
@@ -70,6 +103,70 @@ public class Student extends User {
             return quizAttempts;
         }
 
+        public void setQuizAnswers(HashMap<String, ArrayList<HashMap<String, String>>> quizAnswers) {
+            this.quizAnswers = quizAnswers;
+        }
+
+        public HashMap<String, ArrayList<HashMap<String, String>>> getQuizAnswers() {
+            if (quizAnswers == null) {
+                quizAnswers = new HashMap<String, ArrayList<HashMap<String, String>>>();
+            }
+            return quizAnswers;
+        }
+
+        // ANSWERS SUBMITTED WITH AN ATTEMPT (0 BASED), null IF THEY WERE NOT KEPT
+        public HashMap<String, String> getAttemptAnswers(String lessonId, int attempt) {
+            ArrayList<HashMap<String, String>> answers = getQuizAnswers().get(lessonId);
+            if (answers == null || attempt < 0 || attempt >= answers.size()) {
+                return null;
+            }
+            return answers.get(attempt);
+        }
+
+        // RECOMPUTES THE SCORES OF THE ATTEMPTS THAT KEPT THEIR ANSWERS WITH THE CURRENT KEY
+        // without changing anything: returns all scores of the lesson with the regraded ones
+        // in place, null if no score would change. codes is a scratch buffer of at least
+        // quiz.getQuestionCount() ints, reused by the caller across students
+        public int[] regradedScores(String lessonId, CompiledQuiz quiz, int[] codes) {
+            ArrayList<Integer> scores = getQuizAttempts().get(lessonId);
+            ArrayList<HashMap<String, String>> answers = getQuizAnswers().get(lessonId);
+            if (scores == null || answers == null) {
+                return null;
+            }
+            int[] regraded = null;
+            int count = Math.min(scores.size(), answers.size());
+            for (int i = 0; i < count; i++) {
+                if (answers.get(i) == null) {
+                    continue;
+                }
+                quiz.encode(answers.get(i), codes, 0);
+                int score = quiz.score(codes, 0);
+                Integer old = scores.get(i);
+                if (old == null || old != score) {
+                    if (regraded == null) {
+                        regraded = new int[scores.size()];
+                        for (int j = 0; j < regraded.length; j++) {
+                            regraded[j] = scores.get(j) != null ? scores.get(j) : 0;
+                        }
+                    }
+                    regraded[i] = score;
+                }
+            }
+            return regraded;
+        }
+
+        // OVERWRITES THE SCORES OF THE FIRST ATTEMPTS OF A LESSON (ATTEMPTS ADDED SINCE KEEP THEIRS)
+        public void setQuizScores(String lessonId, int[] scores) {
+            ArrayList<Integer> current = getQuizAttempts().get(lessonId);
+            if (current == null || scores == null) {
+                return;
+            }
+            int count = Math.min(current.size(), scores.length);
+            for (int i = 0; i < count; i++) {
+                current.set(i, scores[i]);
+            }
+        }
+
         public int numCompleted() {
             return progress.size();
         }
@@ -139,6 +236,30 @@ public class Student extends User {
                     " with score: " + score);
         }
 
+        // ADD QUIZ ATTEMPT TOGETHER WITH THE SUBMITTED ANSWERS (questionId -> answer)
+        public void addQuizAttempt(String lessonId, int score, HashMap<String, String> answers) {
+            if (lessonId == null || lessonId.trim().isEmpty()) {
+                System.out.println("addQuizAttempt: lessonId is null or empty");
+                return;
+            }
+            addQuizAttempt(lessonId, score);
+            int attempt = quizAttempts.get(lessonId).size() - 1;
+            ArrayList<HashMap<String, String>> lessonAnswers = getQuizAnswers().get(lessonId);
+            if (lessonAnswers == null) {
+                lessonAnswers = new ArrayList<HashMap<String, String>>();
+                quizAnswers.put(lessonId, lessonAnswers);
+            }
+            // older attempts without answers keep their place as null
+            while (lessonAnswers.size() < attempt) {
+                lessonAnswers.add(null);
+            }
+            if (lessonAnswers.size() == attempt) {
+                lessonAnswers.add(answers);
+            } else {
+                lessonAnswers.set(attempt, answers);
+            }
+        }
+
     }
 
     // CLASS CONSTRUCTOR IN CASE OF ID IS GIVEN
@@ -153,6 +274,18 @@ public class Student extends User {
         this.enrolledCourses = new HashMap<String, studentCourseInfo>();
     }
 
+    // COPY CONSTRUCTOR (DEEP COPY OF ALL ENROLLMENT INFO)
+    public Student(Student other) {
+        super(other);
+        this.enrolledCourses = new HashMap<String, studentCourseInfo>();
+        if (other.enrolledCourses != null) {
+            for (Map.Entry<String, studentCourseInfo> entry : other.enrolledCourses.entrySet()) {
+                this.enrolledCourses.put(entry.getKey(),
+                        entry.getValue() != null ? new studentCourseInfo(entry.getValue()) : null);
+            }
+        }
+    }
+
     // standard getters and setters
     public HashMap<String, studentCourseInfo> getEnrolledCourses() {
         if (enrolledCourses == null)
@@ -233,4 +366,18 @@ public class Student extends User {
         }
         enrolledCourses.get(courseId).addQuizAttempt(lessonId, score);
     }
+
+    // adds a quiz attempt with the answers it was graded on
+    public void addQuizAttempt(String courseId, String lessonId, int score, HashMap<String, String> answers) {
+        if (courseId == null || courseId.trim().isEmpty()) {
+            System.out.println("addQuizAttempt: course ID is null or empty");
+            return;
+        }
+        if (!isEnrolled(courseId)) {
+            System.out.println("addQuizAttempt: student is not enrolled in course ID:"
+                    + courseId);
+            return;
+        }
+        enrolledCourses.get(courseId).addQuizAttempt(lessonId, score, answers);
+    }
 }
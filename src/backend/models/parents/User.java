@@ -22,6 +22,14 @@ public abstract class User {
         this.email = email;
         this.passwordHash = passwordHash;
     }
+    //COPY CONSTRUCTOR USED BY THE SUBCLASSES
+    protected User(User other) {
+        this.userId = other.userId;
+        this.role = other.role;
+        this.username = other.username;
+        this.email = other.email;
+        this.passwordHash = other.passwordHash;
+    }
 
     //standard getters
     public String getUserId() { return userId; }
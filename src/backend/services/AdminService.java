@@ -13,8 +13,8 @@ public class AdminService {
     private UsersDatabaseManager Udb;
 
     public AdminService(String adminId) {
-        Cdb = new CourseDatabaseManager();
-        Udb = new UsersDatabaseManager();
+        Cdb = CourseDatabaseManager.getInstance();
+        Udb = UsersDatabaseManager.getInstance();
         this.adminId = adminId;
         admin = (Admin) Udb.getUser(adminId);
         if (admin == null) {
@@ -55,4 +55,24 @@ public class AdminService {
         return Cdb.getRejectedCourses();
     }
 
+    // Headers of the courses with the given status (for dashboard tables, lessons are not loaded)
+    public ArrayList<CourseHeader> getCourseHeaders(String approvalStatus) {
+        return Cdb.getCourseHeaders(approvalStatus);
+    }
+
+    // One page of the headers with the given status (pending queue, paged lists)
+    public ArrayList<CourseHeader> getCourseHeaders(ApprovalStatus status, int offset, int limit) {
+        return Cdb.getCourseHeaders(status, offset, limit);
+    }
+
+    // Table rows (with instructor names) of one page of the courses with the given status
+    public ArrayList<CourseSummary> getCourseSummaries(ApprovalStatus status, int offset, int limit) {
+        return Cdb.getCourseSummaries(status, offset, limit);
+    }
+
+    // Number of courses with the given status
+    public int countCourses(ApprovalStatus status) {
+        return Cdb.countCourses(status);
+    }
+
 }
@@ -1,7 +1,5 @@
 package backend.services;
 
-import java.util.ArrayList;
-
 import backend.models.*;
 import backend.models.parents.User;
 import backend.databaseManager.*;
@@ -12,7 +10,7 @@ public class AuthManager {
     private UsersDatabaseManager db;
 
     public AuthManager() {
-        db = new UsersDatabaseManager();
+        db = UsersDatabaseManager.getInstance();
     }
 
     // LOGIN METHOD
@@ -24,35 +22,30 @@ public class AuthManager {
         if (!Validator.isValidEmail(email))
             return null;
 
-        // 2. Load users
-        ArrayList<User> users = db.getAllUsers();
+        // 2. Look the account up by email
+        User u = db.getUserByEmail(email);
+        if (u == null)
+            return null;
 
-        // 3. Hash password
+        // 3. Hash password and compare
         String hashed = PasswordHasher.hashPassword(password);
-
-        // 4. Compare
-        for (int i = 0; i < users.size(); i++) {
-            User u = users.get(i);
-            if (u.getEmail().equalsIgnoreCase(email) && u.getPasswordHash().equals(hashed)) 
-            {
-                return db.getUser(u.getUserId());
-            }
+        if (u.getPasswordHash().equals(hashed)) {
+            return u;
         }
         return null; // not found
     }
 
 
+    // LOGOUT METHOD, MAKES EVERY PENDING CHANGE OF THE SESSION DURABLE BEFORE LEAVING
+    public void logout() {
+        PersistenceScheduler.getInstance().flush();
+    }
+
     // REGISTER METHOD TO CREATE A NEW USER
     public User register(String username, String email, String password, String role) {
-        // Load users
-        ArrayList<User> users = db.getAllUsers();
-
         // Check existing email
-        for (int i = 0; i < users.size(); i++) {
-            User u = users.get(i);
-            if (u.getEmail().equalsIgnoreCase(email)) {
-                return null;
-            }
+        if (db.emailExists(email)) {
+            return null;
         }
 
         // Hash password
@@ -0,0 +1,616 @@
+package backend.services;
+
+import backend.models.Certificate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Headless certificate rendering: no dialog, no browser and no printer
+ *
+ * Templates are parsed once into literal parts and {{slot}} names, rendering a
+ * certificate is then a single pass that appends the parts and the slot values.
+ * A renderer is immutable, so a batch can use one instance from many threads
+ * (see renderAll).
+ *
+ * Output formats:
+ * - HTML from a template (the default one is the printable certificate page)
+ * - PDF written directly: one landscape A4 page with vector borders and text in
+ *   the standard Times fonts (every PDF reader has them, nothing is embedded).
+ *   Only the content stream differs between certificates, the rest of the file
+ *   is prepared once
+ * - PNG drawn on a BufferedImage with the same layout as the PDF
+ */
+public class CertificateRenderer {
+
+    public enum Format {
+        HTML("html"), PDF("pdf"), PNG("png");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    // SLOT NAMES AVAILABLE IN A TEMPLATE, IN THE ORDER OF THE VALUES ARRAY
+    public static final String[] SLOTS = { "certificateId", "studentName", "courseTitle", "instructorName",
+            "score", "grade", "issueDate" };
+
+    private static final DateTimeFormatter ISSUE_DATE = DateTimeFormatter.ofPattern("MMMM dd, yyyy", Locale.getDefault());
+
+    /**
+     * Template parsed once into literal parts and slots
+     * ({{name}} with a name from SLOTS, anything else is literal text)
+     */
+    public static class Template {
+        private final String[] literals; // one more than slots
+        private final int[] slots;
+        private final int length; // literal characters, to size the output
+
+        private Template(String[] literals, int[] slots) {
+            this.literals = literals;
+            this.slots = slots;
+            int total = 0;
+            for (String literal : literals) {
+                total += literal.length();
+            }
+            this.length = total;
+        }
+
+        /**
+         * @throws IllegalArgumentException if a slot name is unknown
+         */
+        public static Template parse(String text) {
+            ArrayList<String> literals = new ArrayList<String>();
+            ArrayList<Integer> slots = new ArrayList<Integer>();
+            int position = 0;
+            while (true) {
+                int open = text.indexOf("{{", position);
+                int close = open >= 0 ? text.indexOf("}}", open + 2) : -1;
+                if (close < 0) {
+                    literals.add(text.substring(position));
+                    break;
+                }
+                String name = text.substring(open + 2, close).trim();
+                int slot = slotIndex(name);
+                if (slot < 0) {
+                    throw new IllegalArgumentException("Unknown certificate template slot: " + name);
+                }
+                literals.add(text.substring(position, open));
+                slots.add(slot);
+                position = close + 2;
+            }
+            int[] slotArray = new int[slots.size()];
+            for (int i = 0; i < slotArray.length; i++) {
+                slotArray[i] = slots.get(i);
+            }
+            return new Template(literals.toArray(new String[0]), slotArray);
+        }
+
+        /**
+         * Reads and parses a template file (UTF-8)
+         */
+        public static Template load(Path file) throws IOException {
+            return parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        }
+
+        // APPENDS THE TEMPLATE WITH THE VALUES (INDEXED LIKE SLOTS) IN PLACE OF THE SLOTS
+        void render(String[] values, StringBuilder out) {
+            for (int i = 0; i < slots.length; i++) {
+                out.append(literals[i]).append(values[slots[i]]);
+            }
+            out.append(literals[slots.length]);
+        }
+
+        String render(String[] values) {
+            StringBuilder out = new StringBuilder(length + 64);
+            render(values, out);
+            return out.toString();
+        }
+    }
+
+    private static int slotIndex(String name) {
+        for (int i = 0; i < SLOTS.length; i++) {
+            if (SLOTS[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ==================== LAYOUT (SHARED BY PDF AND PNG) ====================
+
+    // A4 landscape in points, the PNG is drawn at PNG_SCALE pixels per point
+    private static final int PAGE_WIDTH = 842;
+    private static final int PAGE_HEIGHT = 595;
+    private static final int USABLE_WIDTH = PAGE_WIDTH - 220; // inside the borders, with a margin
+    private static final int PNG_SCALE = 2;
+    private static final float PNG_COMPRESSION_QUALITY = 0.75f;
+
+    private static final Color GOLD = new Color(212, 175, 55);
+    private static final Color DARK_GOLD = new Color(180, 150, 50);
+
+    // ONE CENTERED LINE OF TEXT (y IS THE BASELINE FROM THE TOP OF THE PAGE)
+    // a line wider than the usable width is shrunk, down to minSize
+    private static class TextLine {
+        final Template text;
+        final boolean bold;
+        final boolean italic;
+        final int size;
+        final int minSize;
+        final Color color;
+        final int y;
+
+        TextLine(String text, boolean bold, boolean italic, int size, int minSize, Color color, int y) {
+            this.text = Template.parse(text);
+            this.bold = bold;
+            this.italic = italic;
+            this.size = size;
+            this.minSize = minSize;
+            this.color = color;
+            this.y = y;
+        }
+
+        int style() {
+            return (bold ? Font.BOLD : Font.PLAIN) | (italic ? Font.ITALIC : Font.PLAIN);
+        }
+    }
+
+    private static final TextLine[] LINES = {
+            new TextLine("CERTIFICATE OF COMPLETION", true, false, 32, 20, new Color(44, 62, 80), 110),
+            new TextLine("Skill Forge Learning Platform", false, true, 14, 14, new Color(128, 128, 128), 138),
+            new TextLine("This is to certify that", false, false, 16, 16, Color.BLACK, 198),
+            new TextLine("{{studentName}}", true, false, 24, 14, new Color(41, 128, 185), 236),
+            new TextLine("has successfully completed the course", false, false, 16, 16, Color.BLACK, 270),
+            new TextLine("\"{{courseTitle}}\"", true, true, 20, 12, new Color(39, 174, 96), 306),
+            new TextLine("with a final score of {{score}}% ({{grade}})", false, false, 14, 14, Color.BLACK, 336),
+            new TextLine("Instructor: {{instructorName}}", false, false, 12, 10, Color.BLACK, 376),
+            new TextLine("Certificate ID: {{certificateId}}", false, false, 12, 12, Color.BLACK, 394),
+            new TextLine("Issued: {{issueDate}}", false, false, 12, 12, Color.BLACK, 412),
+            new TextLine("Skill Forge Administration", false, false, 12, 12, Color.BLACK, 472),
+            new TextLine("Verify at: Skill Forge Platform | Certificate ID: {{certificateId}}", false, false, 10, 8,
+                    new Color(100, 100, 100), 508)
+    };
+    private static final int SEPARATOR_Y = 160;
+    private static final int SEPARATOR_LENGTH = 400;
+    private static final int SIGNATURE_Y = 455;
+    private static final int SIGNATURE_LENGTH = 200;
+
+    // ==================== DEFAULT HTML TEMPLATE ====================
+
+    private static final String DEFAULT_HTML = "<!DOCTYPE html>\n" +
+            "<html>\n" +
+            "<head>\n" +
+            "    <meta charset=\"UTF-8\">\n" +
+            "    <title>Certificate - {{certificateId}}</title>\n" +
+            "    <style>\n" +
+            "        body { font-family: Arial, sans-serif; margin: 0; padding: 40px;\n" +
+            "               background: linear-gradient(to bottom, #fefefe, #f5f5f5); }\n" +
+            "        .certificate { border: 15px solid #D4AF37; padding: 50px; text-align: center; background: white;\n" +
+            "                       box-shadow: 0 0 20px rgba(0,0,0,0.1); max-width: 800px; margin: 0 auto; }\n" +
+            "        .title { color: #2c3e50; font-size: 36px; margin-bottom: 10px; font-weight: bold; }\n" +
+            "        .subtitle { color: #7f8c8d; font-size: 18px; margin-bottom: 30px; }\n" +
+            "        .student-name { color: #2980b9; font-size: 32px; margin: 20px 0; font-weight: bold; }\n" +
+            "        .course-title { color: #27ae60; font-size: 24px; margin: 20px 0; font-style: italic; }\n" +
+            "        .score { color: #e74c3c; font-size: 20px; margin: 20px 0; font-weight: bold; }\n" +
+            "        .details { margin-top: 40px; text-align: left; display: inline-block; }\n" +
+            "        .signature { margin-top: 60px; border-top: 2px solid black; padding-top: 10px; display: inline-block; }\n" +
+            "        @media print {\n" +
+            "            body { margin: 0; padding: 0; }\n" +
+            "            .certificate { border: 10px solid #D4AF37; box-shadow: none; }\n" +
+            "        }\n" +
+            "    </style>\n" +
+            "</head>\n" +
+            "<body>\n" +
+            "    <div class=\"certificate\">\n" +
+            "        <div class=\"title\">CERTIFICATE OF COMPLETION</div>\n" +
+            "        <div class=\"subtitle\">Skill Forge Learning Platform</div>\n" +
+            "        <hr style=\"border: 1px solid #D4AF37; width: 80%; margin: 20px auto;\">\n" +
+            "        <p>This is to certify that</p>\n" +
+            "        <div class=\"student-name\">{{studentName}}</div>\n" +
+            "        <p>has successfully completed the course</p>\n" +
+            "        <div class=\"course-title\">\"{{courseTitle}}\"</div>\n" +
+            "        <div class=\"score\">with a final score of {{score}}% ({{grade}})</div>\n" +
+            "        <div class=\"details\">\n" +
+            "            <p><strong>Instructor:</strong> {{instructorName}}</p>\n" +
+            "            <p><strong>Certificate ID:</strong> {{certificateId}}</p>\n" +
+            "            <p><strong>Issue Date:</strong> {{issueDate}}</p>\n" +
+            "        </div>\n" +
+            "        <div class=\"signature\">Skill Forge Administration</div>\n" +
+            "        <div style=\"margin-top: 30px; font-size: 12px; color: #95a5a6;\">\n" +
+            "            To verify this certificate, visit Skill Forge Platform\n" +
+            "        </div>\n" +
+            "    </div>\n" +
+            "</body>\n" +
+            "</html>\n";
+
+    private static final CertificateRenderer DEFAULT = new CertificateRenderer();
+
+    private final Template html;
+
+    public CertificateRenderer() {
+        this(Template.parse(DEFAULT_HTML));
+    }
+
+    // RENDERER WITH ITS OWN HTML TEMPLATE (PDF AND PNG KEEP THE BUILT-IN LAYOUT)
+    public CertificateRenderer(Template html) {
+        this.html = html;
+    }
+
+    // SHARED RENDERER WITH THE DEFAULT TEMPLATE
+    public static CertificateRenderer getDefault() {
+        return DEFAULT;
+    }
+
+    // ==================== RENDERING ====================
+
+    public String renderHTML(Certificate certificate) {
+        return html.render(values(certificate, true));
+    }
+
+    public byte[] renderPDF(Certificate certificate) {
+        return PdfWriter.write(values(certificate, false));
+    }
+
+    public byte[] renderPNG(Certificate certificate) throws IOException {
+        String[] values = values(certificate, false);
+        BufferedImage image = new BufferedImage(PAGE_WIDTH * PNG_SCALE, PAGE_HEIGHT * PNG_SCALE,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.scale(PNG_SCALE, PNG_SCALE);
+            draw(g2d, values);
+        } finally {
+            g2d.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128 * 1024);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            // encoded in memory (ImageIO would otherwise buffer through a temporary file), with
+            // a fast deflate level: about 4x quicker than the default for a ~20% larger file
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(PNG_COMPRESSION_QUALITY);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    public byte[] render(Certificate certificate, Format format) throws IOException {
+        switch (format) {
+            case HTML:
+                return renderHTML(certificate).getBytes(StandardCharsets.UTF_8);
+            case PDF:
+                return renderPDF(certificate);
+            default:
+                return renderPNG(certificate);
+        }
+    }
+
+    /**
+     * Renders the certificates in parallel (common fork/join pool) into the
+     * directory, one file per certificate named after its id
+     *
+     * @return number of files written, failures are logged and skipped
+     */
+    public int renderAll(List<Certificate> certificates, Format format, File directory) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.err.println("renderAll: cannot create directory " + directory);
+            return 0;
+        }
+        AtomicInteger written = new AtomicInteger();
+        IntStream.range(0, certificates.size()).parallel().forEach(i -> {
+            Certificate certificate = certificates.get(i);
+            try {
+                Path file = new File(directory, certificate.getCertificateId() + "." + format.getExtension())
+                        .toPath();
+                Files.write(file, render(certificate, format));
+                written.incrementAndGet();
+            } catch (Exception e) {
+                System.err.println("renderAll: certificate " + certificate.getCertificateId() + " not rendered: "
+                        + e.getMessage());
+            }
+        });
+        return written.get();
+    }
+
+    // SLOT VALUES OF A CERTIFICATE, ESCAPED FOR HTML WHEN html IS SET
+    private static String[] values(Certificate certificate, boolean html) {
+        String[] values = new String[SLOTS.length];
+        values[0] = certificate.getCertificateId();
+        values[1] = certificate.getStudentName();
+        values[2] = certificate.getCourseTitle();
+        values[3] = certificate.getInstructorName();
+        values[4] = oneDecimal(certificate.getFinalScore());
+        values[5] = certificate.getGrade();
+        values[6] = certificate.getIssueDate() != null
+                ? ISSUE_DATE.format(certificate.getIssueDate().toInstant().atZone(ZoneId.systemDefault()))
+                : "";
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                values[i] = "";
+            } else if (html) {
+                values[i] = escapeHTML(values[i]);
+            }
+        }
+        return values;
+    }
+
+    // SAME TEXT AS String.format("%.1f", value) WITHOUT THE FORMATTER
+    private static String oneDecimal(double value) {
+        long tenths = Math.round(Math.abs(value) * 10);
+        return (value < 0 && tenths != 0 ? "-" : "") + (tenths / 10) + "." + (tenths % 10);
+    }
+
+    private static String escapeHTML(String value) {
+        StringBuilder out = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = c == '&' ? "&amp;" : c == '<' ? "&lt;" : c == '>' ? "&gt;"
+                    : c == '"' ? "&quot;" : c == '\'' ? "&#39;" : null;
+            if (replacement != null && out == null) {
+                out = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (out != null) {
+                if (replacement != null) {
+                    out.append(replacement);
+                } else {
+                    out.append(c);
+                }
+            }
+        }
+        return out != null ? out.toString() : value;
+    }
+
+    // DRAWS THE CERTIFICATE ON A PAGE OF PAGE_WIDTH x PAGE_HEIGHT
+    private static void draw(Graphics2D g2d, String[] values) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, PAGE_WIDTH, PAGE_HEIGHT);
+
+        // borders
+        g2d.setColor(GOLD);
+        g2d.setStroke(new BasicStroke(8));
+        g2d.drawRect(40, 40, PAGE_WIDTH - 80, PAGE_HEIGHT - 80);
+        g2d.setColor(DARK_GOLD);
+        g2d.setStroke(new BasicStroke(3));
+        g2d.drawRect(60, 60, PAGE_WIDTH - 120, PAGE_HEIGHT - 120);
+
+        // separator under the subtitle and signature line
+        int centerX = PAGE_WIDTH / 2;
+        g2d.setColor(GOLD);
+        g2d.setStroke(new BasicStroke(2));
+        g2d.drawLine(centerX - SEPARATOR_LENGTH / 2, SEPARATOR_Y, centerX + SEPARATOR_LENGTH / 2, SEPARATOR_Y);
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(new BasicStroke(1));
+        g2d.drawLine(centerX - SIGNATURE_LENGTH / 2, SIGNATURE_Y, centerX + SIGNATURE_LENGTH / 2, SIGNATURE_Y);
+
+        for (TextLine line : LINES) {
+            String text = line.text.render(values);
+            Font font = new Font("Serif", line.style(), line.size);
+            FontMetrics metrics = g2d.getFontMetrics(font);
+            while (metrics.stringWidth(text) > USABLE_WIDTH && font.getSize() > line.minSize) {
+                font = font.deriveFont((float) font.getSize() - 2);
+                metrics = g2d.getFontMetrics(font);
+            }
+            g2d.setFont(font);
+            g2d.setColor(line.color);
+            g2d.drawString(text, centerX - metrics.stringWidth(text) / 2, line.y);
+        }
+    }
+
+    // ==================== PDF ====================
+
+    /**
+     * Minimal PDF 1.4 writer for the certificate page
+     *
+     * Objects 1-3 (catalog, pages, page) and 5-8 (the four Times fonts) never
+     * change and are written once into PREFIX, the content stream is object 4
+     * and goes last, so only its offset and the xref entry for it are computed
+     * per certificate.
+     */
+    private static class PdfWriter {
+        private static final String[] FONTS = { "Times-Roman", "Times-Bold", "Times-Italic", "Times-BoldItalic" };
+        private static final byte[] PREFIX;
+        private static final int[] OFFSETS = new int[9]; // object number -> byte offset
+        private static final String STATIC_CONTENT;
+
+        // ADVANCE WIDTHS OF CHARACTERS 32..126 IN 1/1000 EM (ADOBE CORE FONT METRICS),
+        // the italic faces are measured with the upright widths of the same weight, close
+        // enough to center a line
+        private static final short[] ROMAN_WIDTHS = {
+                250, 333, 408, 500, 500, 833, 778, 180, 333, 333, 500, 564, 250, 333, 250, 278,
+                500, 500, 500, 500, 500, 500, 500, 500, 500, 500,
+                278, 278, 564, 564, 564, 444, 921,
+                722, 667, 667, 722, 611, 556, 722, 722, 333, 389, 722, 611, 889, 722, 722, 556, 722, 667, 556,
+                611, 722, 722, 944, 722, 722, 611,
+                333, 278, 333, 469, 500, 333,
+                444, 500, 444, 500, 444, 333, 500, 500, 278, 278, 500, 278, 778, 500, 500, 500, 500, 333, 389,
+                278, 500, 500, 722, 500, 500, 444,
+                480, 200, 480, 541 };
+        private static final short[] BOLD_WIDTHS = {
+                250, 333, 555, 500, 500, 1000, 833, 278, 333, 333, 500, 570, 250, 333, 250, 278,
+                500, 500, 500, 500, 500, 500, 500, 500, 500, 500,
+                333, 333, 570, 570, 570, 500, 930,
+                722, 667, 722, 722, 667, 611, 778, 778, 389, 500, 778, 667, 944, 722, 778, 611, 778, 722, 556,
+                667, 722, 722, 1000, 722, 722, 667,
+                333, 278, 333, 581, 500, 333,
+                500, 556, 444, 556, 444, 333, 500, 556, 278, 333, 556, 278, 833, 556, 500, 556, 556, 444, 389,
+                333, 556, 500, 722, 500, 500, 444,
+                394, 220, 394, 520 };
+        private static final int DEFAULT_WIDTH = 500; // latin-1 letters outside the tables
+
+        static {
+            StringBuilder out = new StringBuilder(1024);
+            out.append("%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n");
+            OFFSETS[1] = out.length();
+            out.append("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+            OFFSETS[2] = out.length();
+            out.append("2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+            OFFSETS[3] = out.length();
+            out.append("3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 ").append(PAGE_WIDTH).append(' ')
+                    .append(PAGE_HEIGHT).append("] /Resources << /Font << /F1 5 0 R /F2 6 0 R /F3 7 0 R /F4 8 0 R >> >>"
+                            + " /Contents 4 0 R >>\nendobj\n");
+            for (int i = 0; i < FONTS.length; i++) {
+                OFFSETS[5 + i] = out.length();
+                out.append(5 + i).append(" 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /").append(FONTS[i])
+                        .append(" /Encoding /WinAnsiEncoding >>\nendobj\n");
+            }
+            PREFIX = out.toString().getBytes(StandardCharsets.ISO_8859_1);
+
+            // borders, separator and signature line (y measured from the bottom in PDF)
+            StringBuilder content = new StringBuilder(512);
+            int centerX = PAGE_WIDTH / 2;
+            color(content, GOLD, "RG");
+            content.append("8 w 40 40 ").append(PAGE_WIDTH - 80).append(' ').append(PAGE_HEIGHT - 80).append(" re S\n");
+            color(content, DARK_GOLD, "RG");
+            content.append("3 w 60 60 ").append(PAGE_WIDTH - 120).append(' ').append(PAGE_HEIGHT - 120).append(" re S\n");
+            color(content, GOLD, "RG");
+            content.append("2 w ").append(centerX - SEPARATOR_LENGTH / 2).append(' ').append(PAGE_HEIGHT - SEPARATOR_Y)
+                    .append(" m ").append(centerX + SEPARATOR_LENGTH / 2).append(' ')
+                    .append(PAGE_HEIGHT - SEPARATOR_Y).append(" l S\n");
+            color(content, Color.BLACK, "RG");
+            content.append("1 w ").append(centerX - SIGNATURE_LENGTH / 2).append(' ').append(PAGE_HEIGHT - SIGNATURE_Y)
+                    .append(" m ").append(centerX + SIGNATURE_LENGTH / 2).append(' ')
+                    .append(PAGE_HEIGHT - SIGNATURE_Y).append(" l S\n");
+            STATIC_CONTENT = content.toString();
+        }
+
+        static byte[] write(String[] values) {
+            StringBuilder content = new StringBuilder(STATIC_CONTENT.length() + 1024);
+            content.append(STATIC_CONTENT);
+            for (TextLine line : LINES) {
+                text(content, line, line.text.render(values));
+            }
+
+            StringBuilder tail = new StringBuilder(content.length() + 400);
+            tail.append("4 0 obj\n<< /Length ").append(content.length()).append(" >>\nstream\n").append(content)
+                    .append("\nendstream\nendobj\n");
+            int xref = PREFIX.length + tail.length();
+            tail.append("xref\n0 9\n0000000000 65535 f \n");
+            for (int i = 1; i <= 8; i++) {
+                int offset = i == 4 ? PREFIX.length : OFFSETS[i];
+                String number = Integer.toString(offset);
+                for (int pad = number.length(); pad < 10; pad++) {
+                    tail.append('0');
+                }
+                tail.append(number).append(" 00000 n \n");
+            }
+            tail.append("trailer\n<< /Size 9 /Root 1 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+
+            byte[] body = tail.toString().getBytes(StandardCharsets.ISO_8859_1);
+            byte[] pdf = new byte[PREFIX.length + body.length];
+            System.arraycopy(PREFIX, 0, pdf, 0, PREFIX.length);
+            System.arraycopy(body, 0, pdf, PREFIX.length, body.length);
+            return pdf;
+        }
+
+        // ONE CENTERED LINE, SHRUNK LIKE THE PNG WHEN IT IS TOO WIDE
+        private static void text(StringBuilder content, TextLine line, String text) {
+            String encoded = encode(text);
+            short[] widths = line.bold ? BOLD_WIDTHS : ROMAN_WIDTHS;
+            int units = 0;
+            for (int i = 0; i < encoded.length(); i++) {
+                char c = encoded.charAt(i);
+                units += c >= 32 && c <= 126 ? widths[c - 32] : DEFAULT_WIDTH;
+            }
+            int size = line.size;
+            while (units * size / 1000.0 > USABLE_WIDTH && size > line.minSize) {
+                size -= 2;
+            }
+            double x = PAGE_WIDTH / 2.0 - units * size / 2000.0;
+            color(content, line.color, "rg");
+            content.append("BT /F").append((line.bold ? 2 : 1) + (line.italic ? 2 : 0)).append(' ').append(size)
+                    .append(" Tf ");
+            number(content, x);
+            content.append(' ').append(PAGE_HEIGHT - line.y).append(" Td (");
+            for (int i = 0; i < encoded.length(); i++) {
+                char c = encoded.charAt(i);
+                if (c == '(' || c == ')' || c == '\\') {
+                    content.append('\\');
+                }
+                content.append(c);
+            }
+            content.append(") Tj ET\n");
+        }
+
+        // KEEPS THE CHARACTERS WinAnsiEncoding SHARES WITH LATIN-1, ANY OTHER BECOMES '?'
+        private static String encode(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 32 || (c > 126 && c < 160) || c > 255) {
+                    StringBuilder out = new StringBuilder(text);
+                    for (int j = i; j < out.length(); j++) {
+                        char d = out.charAt(j);
+                        if (d < 32 || (d > 126 && d < 160) || d > 255) {
+                            out.setCharAt(j, '?');
+                        }
+                    }
+                    return out.toString();
+                }
+            }
+            return text;
+        }
+
+        private static void color(StringBuilder content, Color color, String operator) {
+            number(content, color.getRed() / 255.0);
+            content.append(' ');
+            number(content, color.getGreen() / 255.0);
+            content.append(' ');
+            number(content, color.getBlue() / 255.0);
+            content.append(' ').append(operator).append(' ');
+        }
+
+        // NUMBER WITH AT MOST 3 DECIMALS (PDF READERS DO NOT ACCEPT EXPONENTS)
+        private static void number(StringBuilder content, double value) {
+            long thousandths = Math.round(value * 1000);
+            if (thousandths < 0) {
+                content.append('-');
+                thousandths = -thousandths;
+            }
+            content.append(thousandths / 1000);
+            long fraction = thousandths % 1000;
+            if (fraction != 0) {
+                content.append('.');
+                if (fraction < 100) {
+                    content.append('0');
+                }
+                if (fraction < 10) {
+                    content.append('0');
+                }
+                // trailing zeros are allowed, only the leading ones matter
+                content.append(fraction);
+            }
+        }
+    }
+}
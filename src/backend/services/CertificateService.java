@@ -0,0 +1,78 @@
+package backend.services;
+
+import backend.models.Certificate;
+import backend.models.Course;
+import backend.models.Student;
+import backend.models.Student.studentCourseInfo;
+import backend.databaseManager.CourseCatalogSnapshot;
+import backend.databaseManager.CourseDatabaseManager;
+import backend.databaseManager.CourseHeader;
+import backend.databaseManager.UsersDatabaseManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Issues the certificates of a whole course in one run (term-end batches)
+ *
+ * The course and its instructor name are resolved once, every enrolled student
+ * who completed all lessons and has no certificate yet is then checked and
+ * scored in parallel on the fork/join pool inside the users store, and all the
+ * new certificates are persisted with a single journal append.
+ */
+public class CertificateService {
+
+    /**
+     * Issues a certificate to every student of the course who completed all of
+     * its lessons and does not hold one yet
+     *
+     * @return the certificates issued (empty if none was due), null if the course
+     *         is unknown or the certificates could not be written
+     */
+    public static ArrayList<Certificate> issueCertificates(String courseId) {
+        try {
+            CourseCatalogSnapshot catalog = CourseDatabaseManager.getInstance().getSnapshot();
+            CourseHeader course = catalog.getHeader(courseId);
+            Course roster = catalog.getCourse(courseId);
+            if (course == null || roster == null) {
+                System.out.println("issueCertificates: course not found " + courseId);
+                return null;
+            }
+            int lessonCount = course.getLessonCount();
+            if (lessonCount == 0) {
+                System.out.println("issueCertificates: course " + courseId + " has no lessons");
+                return new ArrayList<Certificate>();
+            }
+            UsersDatabaseManager Udb = UsersDatabaseManager.getInstance();
+            String instructorName = Udb.getUsername(course.getInstructorId());
+            List<String> students = roster.getStudents() != null ? roster.getStudents()
+                    : Collections.<String>emptyList();
+
+            long start = System.currentTimeMillis();
+            ArrayList<Certificate> issued = Udb.issueCertificates(students, courseId,
+                    student -> isDue(student, courseId, lessonCount)
+                            ? StudentService.generateCertificate(student, course, instructorName)
+                            : null,
+                    ForkJoinPool.commonPool());
+            if (issued == null) {
+                System.out.println("issueCertificates: certificates of course " + courseId + " NOT saved");
+                return null;
+            }
+            // folds the journal into the snapshot once it has grown past the threshold
+            Udb.SaveUsersToFile();
+            System.out.println("issueCertificates: " + issued.size() + " certificates issued for course "
+                    + courseId + " in " + (System.currentTimeMillis() - start) + " ms");
+            return issued;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // COMPLETED EVERY LESSON AND HAS NO CERTIFICATE FOR THE COURSE YET
+    private static boolean isDue(Student student, String courseId, int lessonCount) {
+        studentCourseInfo info = student.getEnrolledCourses().get(courseId);
+        return info != null && info.getCertificate() == null && info.getProgress().size() >= lessonCount;
+    }
+}
@@ -13,7 +13,7 @@ public class InstructorQuizService {
 
     public InstructorQuizService(String instructorId) {
         this.instructorId = instructorId;
-        this.courseDB = new CourseDatabaseManager();
+        this.courseDB = CourseDatabaseManager.getInstance();
     }
 
     /**
@@ -74,6 +74,8 @@ public class InstructorQuizService {
                     lesson.setQuiz(updatedQuiz);
                     courseDB.update(course);
                     courseDB.SaveCoursesToFile();
+                    // stored scores were graded with the old answer key
+                    QuizRegradeService.regradeInBackground(courseId, updatedQuiz);
                     System.out.println("Quiz updated successfully for lesson: " + lessonId);
                     return true;
                 }
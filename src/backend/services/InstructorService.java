@@ -1,6 +1,9 @@
 package backend.services;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 import backend.databaseManager.*;
 import backend.models.*;
@@ -11,16 +14,22 @@ public class InstructorService {
     private Instructor instructor;
     private CourseDatabaseManager Cdb;
     private UsersDatabaseManager Udb;
-    private ArrayList<Course> createdCourses;
+    // CREATED COURSES KEYED BY courseId (AN INCREMENTAL REFRESH REPLACES THEM BY ID)
+    private LinkedHashMap<String, Course> createdCourses;
+    // VERSIONS OF THE STORES THE LISTS ABOVE WERE BUILT FROM (-1 = NOT BUILT YET)
+    private long coursesVersion = -1;
+    private long usersVersion = -1;
 
     // CLASS CONSTRUCTORS
     public InstructorService(Instructor instructor) {
         this.instructor = instructor;
         this.instructorId = instructor.getUserId();
-        Cdb = new CourseDatabaseManager();
-        Udb = new UsersDatabaseManager();
-        this.createdCourses = new ArrayList<Course>();
+        Cdb = CourseDatabaseManager.getInstance();
+        Udb = UsersDatabaseManager.getInstance();
+        this.createdCourses = new LinkedHashMap<String, Course>();
         try {
+            coursesVersion = this.instructor != null ? Cdb.getVersion() : -1;
+            usersVersion = Udb.getVersion();
             getCreatedCoursesOfInstructor();
         } catch (Exception e) {
             e.printStackTrace();
@@ -28,15 +37,17 @@ public class InstructorService {
     }
 
     public InstructorService(String instructorID) {
-        Cdb = new CourseDatabaseManager();
-        Udb = new UsersDatabaseManager();
-        this.createdCourses = new ArrayList<Course>();
+        Cdb = CourseDatabaseManager.getInstance();
+        Udb = UsersDatabaseManager.getInstance();
+        this.createdCourses = new LinkedHashMap<String, Course>();
         this.instructorId = instructorID;
         this.instructor = (Instructor) Udb.getUser(instructorID);
         if (this.instructor == null) {
             System.out.println("instructor with this id not found ");
         }
         try {
+            coursesVersion = this.instructor != null ? Cdb.getVersion() : -1;
+            usersVersion = Udb.getVersion();
             getCreatedCoursesOfInstructor();
         } catch (Exception e) {
             e.printStackTrace();
@@ -49,16 +60,39 @@ public class InstructorService {
             System.out.println("getCreatedCoursesOfInstructor :instructor not found");
             return;
         }
-        ArrayList<String> createdCoursesIds = instructor.getCreatedCourses();
-        ArrayList<Course> allCourses = Cdb.getAllCourses();
-        for (int i = 0; i < allCourses.size(); i++) {
-            String id = allCourses.get(i).getCourseId();
+        HashSet<String> createdCoursesIds = new HashSet<String>(instructor.getCreatedCourses());
+        // only this instructor's courses are read (reverse index), all from one catalog version
+        CourseCatalogSnapshot catalog = Cdb.getSnapshot();
+        ArrayList<String> courseIds = catalog.getCourseIdsOfInstructor(instructorId);
+        for (int i = 0; i < courseIds.size(); i++) {
+            String id = courseIds.get(i);
             if (createdCoursesIds.contains(id)) {
-                createdCourses.add(Cdb.getCourse(id));
+                createdCourses.put(id, catalog.getCourse(id));
             }
         }
     }
 
+    // METHOD TO APPLY ONLY THE COURSES THAT CHANGED SINCE THE LAST BUILD
+    // returns false if the store no longer knows that version (the list must be rebuilt)
+    private boolean updateCreatedCoursesOfInstructor(long sinceVersion) {
+        ArrayList<String> changedIds = Cdb.getCourseIdsChangedSince(sinceVersion);
+        if (changedIds == null) {
+            return false;
+        }
+        HashSet<String> createdCoursesIds = new HashSet<String>(instructor.getCreatedCourses());
+        for (String id : changedIds) {
+            // null when the course was deleted or does not belong to this instructor
+            Course course = createdCoursesIds.contains(id) ? Cdb.getCourse(id) : null;
+            if (course == null) {
+                createdCourses.remove(id);
+            } else {
+                // an existing entry keeps its position
+                createdCourses.put(id, course);
+            }
+        }
+        return true;
+    }
+
     // METHODS TO MANIPULATE COURSES
     public void addCourse(Course course) {
         refresh();
@@ -66,21 +100,18 @@ public class InstructorService {
             System.out.println("addCourse : instructor not found");
             return;
         }
-        String id = Cdb.addCourse(course);
-        instructor.addCreatedCourse(id);
         try {
-            Cdb.update(course);
-            Udb.update(instructor);
-            try {
-                Cdb.SaveCoursesToFile();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            try {
-                Udb.SaveUsersToFile();
+            String id = Cdb.generateId();
+            course.setCourseId(id);
+            instructor.addCreatedCourse(id);
+            // the course and its owner are written together or not at all
+            UnitOfWork uow = new UnitOfWork();
+            uow.putCourse(course);
+            uow.putUser(instructor);
+            if (uow.commit()) {
                 System.out.println("Course ID:" + course.getCourseId() + " added successfully.");
-            } catch (Exception e) {
-                e.printStackTrace();
+            } else {
+                instructor.removeCreatedCourse(id);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -112,8 +143,17 @@ public class InstructorService {
             return;
         }
         try {
-            Cdb.deleteCourse(courseID);
-            Cdb.SaveCoursesToFile();
+            // the course and the owner's reference to it are removed together
+            UnitOfWork uow = new UnitOfWork();
+            uow.deleteCourse(courseID);
+            if (instructor != null) {
+                Instructor owner = (Instructor) Udb.getUser(instructorId);
+                owner.removeCreatedCourse(courseID);
+                uow.putUser(owner);
+            }
+            if (!uow.commit()) {
+                return;
+            }
             System.out.println("Course ID:" + courseID + " deleted successfully.");
         } catch (Exception e) {
             e.printStackTrace();
@@ -193,16 +233,32 @@ public class InstructorService {
     }
 
     // USED TO KEEP THE SERVICE UP TO DATE
+    // nothing is done unless a store version moved, and then only the changed courses are fetched
     public void refresh() {
-        Cdb = new CourseDatabaseManager();
-        Udb = new UsersDatabaseManager();
-        this.createdCourses = new ArrayList<Course>();
-        this.instructor = (Instructor) Udb.getUser(instructorId);
-        if (this.instructor == null) {
-            System.out.println("instructor with this id not found");
+        long currentCourses = Cdb.getVersion();
+        long currentUsers = Udb.getVersion();
+        if (currentCourses == coursesVersion && currentUsers == usersVersion) {
+            return;
         }
         try {
-            getCreatedCoursesOfInstructor();
+            if (currentUsers != usersVersion || this.instructor == null) {
+                this.instructor = (Instructor) Udb.getUser(instructorId);
+                if (this.instructor == null) {
+                    System.out.println("instructor with this id not found");
+                }
+            }
+            if (this.instructor == null) {
+                // nothing to build, the next refresh starts from scratch
+                this.createdCourses = new LinkedHashMap<String, Course>();
+                coursesVersion = -1;
+                return;
+            }
+            if (coursesVersion < 0 || !updateCreatedCoursesOfInstructor(coursesVersion)) {
+                this.createdCourses = new LinkedHashMap<String, Course>();
+                getCreatedCoursesOfInstructor();
+            }
+            coursesVersion = currentCourses;
+            usersVersion = currentUsers;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -212,7 +268,28 @@ public class InstructorService {
     public ArrayList<Course> getCreatedCourses() {
         refresh();
         System.out.println("Created Courses retreived successfully, size:" + createdCourses.size() + ".");
-        return createdCourses;
+        // copies, so the caller can edit them without touching the cached list
+        ArrayList<Course> courses = new ArrayList<Course>(createdCourses.size());
+        for (Course course : createdCourses.values()) {
+            courses.add(new Course(course));
+        }
+        return courses;
+    }
+
+    // TABLE ROWS OF THE CREATED COURSES (NO LESSON IS COPIED)
+    public ArrayList<CourseSummary> getCourseSummaries() {
+        refresh();
+        if (instructor == null) {
+            return new ArrayList<CourseSummary>();
+        }
+        HashSet<String> createdCoursesIds = new HashSet<String>(instructor.getCreatedCourses());
+        ArrayList<String> courseIds = new ArrayList<String>();
+        for (String id : Cdb.getCourseIdsOfInstructor(instructorId)) {
+            if (createdCoursesIds.contains(id)) {
+                courseIds.add(id);
+            }
+        }
+        return Cdb.getCourseSummaries(courseIds);
     }
 
     public ArrayList<Lesson> getLessons(String courseID) {
@@ -234,7 +311,7 @@ public class InstructorService {
             System.out.println("getEnrolledStudents : course not registered");
             return null;
         }
-        ArrayList<String> studentIds = course.getStudents();
+        List<String> studentIds = course.getStudents();
         ArrayList<Student> enrolledStudents = new ArrayList<>();
         for (int i = 0; i < studentIds.size(); i++) {
             enrolledStudents.add((Student) Udb.getUser(studentIds.get(i)));
@@ -0,0 +1,101 @@
+package backend.services;
+
+import backend.models.CompiledQuiz;
+import backend.models.Course;
+import backend.models.Quiz;
+import backend.databaseManager.CourseDatabaseManager;
+import backend.databaseManager.UsersDatabaseManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Recomputes the stored quiz scores of every enrolled student after the quiz
+ * (its answer key or points) was edited. Only attempts that kept their answers
+ * can be regraded, older attempts keep the score they were given.
+ *
+ * The roster is processed in batches: each batch is graded in parallel on the
+ * fork/join pool inside the users store and written as one journal append, so
+ * the results reach the disk while the job runs and a student submitting a quiz
+ * only waits for the current batch.
+ */
+public class QuizRegradeService {
+    private static final int BATCH_SIZE = 5000;
+
+    // ONE BACKGROUND JOB AT A TIME, IN THE ORDER THE QUIZZES WERE EDITED
+    private static final ExecutorService RUNNER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "quiz-regrade");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Progress of a regrade, called after every batch
+     */
+    public interface ProgressListener {
+        void onProgress(int done, int total, int changed);
+    }
+
+    /**
+     * Regrades one quiz for every student enrolled in the course
+     *
+     * @return number of students whose scores changed, -1 if the course is
+     *         unknown or a batch could not be written (earlier batches stay written)
+     */
+    public static int regrade(String courseId, Quiz quiz, ProgressListener listener) {
+        try {
+            Course course = CourseDatabaseManager.getInstance().getCourse(courseId);
+            if (course == null || quiz == null || quiz.getLessonId() == null) {
+                System.out.println("regrade: course or quiz not found");
+                return -1;
+            }
+            UsersDatabaseManager Udb = UsersDatabaseManager.getInstance();
+            CompiledQuiz compiled = quiz.compile();
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            List<String> roster = course.getStudents() != null ? course.getStudents() : new ArrayList<String>();
+            int total = roster.size();
+            int changed = 0;
+            for (int from = 0; from < total; from += BATCH_SIZE) {
+                int to = Math.min(total, from + BATCH_SIZE);
+                int result = Udb.regradeQuizAttempts(roster.subList(from, to), courseId, quiz.getLessonId(),
+                        compiled, pool);
+                if (result < 0) {
+                    System.out.println("regrade: batch " + from + "-" + to + " could not be written");
+                    return -1;
+                }
+                changed += result;
+                if (listener != null) {
+                    listener.onProgress(to, total, changed);
+                }
+            }
+            // folds the journal into the snapshot once it has grown past the threshold
+            Udb.SaveUsersToFile();
+            return changed;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Queues a regrade of the quiz and returns at once, progress is logged
+     */
+    public static void regradeInBackground(String courseId, Quiz quiz) {
+        if (quiz == null) {
+            return;
+        }
+        // the job grades with the quiz as it is now, later edits queue their own job
+        Quiz edited = new Quiz(quiz);
+        RUNNER.submit(() -> {
+            long start = System.currentTimeMillis();
+            int changed = regrade(courseId, edited, (done, total, changedSoFar) -> System.out
+                    .println("Regrading quiz " + edited.getQuizId() + ": " + done + "/" + total + " students"));
+            if (changed >= 0) {
+                System.out.println("Quiz " + edited.getQuizId() + " regraded, " + changed
+                        + " students changed in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        });
+    }
+}
@@ -18,8 +18,8 @@ public class StudentQuizService {
 
     public StudentQuizService(String studentId) {
         try {
-            this.Cdb = new CourseDatabaseManager();
-            this.Udb = new UsersDatabaseManager();
+            this.Cdb = CourseDatabaseManager.getInstance();
+            this.Udb = UsersDatabaseManager.getInstance();
             this.studentId = studentId;
             this.student = (Student) Udb.getUser(studentId);
         } catch (Exception e) {
@@ -53,25 +53,40 @@ public class StudentQuizService {
     /**
      * Submit quiz answers and record attempt score and mark the lesson as completed
      * if passed
+     *
+     * The attempt (and the completion, plus the certificate when it completes the
+     * course) is written as one small journal record, the student is not rewritten.
+     * The answers are kept with the attempt (keyed by question id) so the attempt
+     * can be regraded after the quiz is edited
      */
     public double submitQuiz(String courseId, String lessonId, Quiz quiz, ArrayList<String> answers) {
-        if (quiz == null || answers == null) {
+        if (quiz == null || answers == null || student == null) {
             return -1;
         }
 
-        // Calculate score
-        int score = quiz.calculateScore(answers);
-        boolean passed = quiz.isPassed(answers);
+        // Calculate score (score and pass / fail from a single grading pass)
+        CompiledQuiz compiled = quiz.compile();
+        CompiledQuiz.Grade grade = compiled.grade(answers);
+        int score = grade.getScore();
+        boolean passed = grade.isPassed();
+        HashMap<String, String> sheet = compiled.answerSheet(answers);
 
-        student.addQuizAttempt(courseId, lessonId, score);
-        Udb.update(student);
-        Udb.SaveUsersToFile();
-
-        // If passed, mark lesson as completed
+        // applied to the local copy first, the certificate is computed from it
+        student.addQuizAttempt(courseId, lessonId, score, sheet);
+        Certificate certificate = null;
         if (passed) {
-            markLessonAsCompleted(courseId, lessonId);
+            student.markLessonComplete(courseId, lessonId);
+            certificate = certificateIfCompleted(courseId);
         }
 
+        if (!Udb.recordQuizAttempt(studentId, courseId, lessonId, score, sheet, passed, certificate)) {
+            // keep the local copy as it is in the store
+            this.student = (Student) Udb.getUser(studentId);
+            return -1;
+        }
+        // folds the journal into the snapshot once it has grown past the threshold
+        Udb.SaveUsersToFile();
+
         return score;
     }
 
@@ -113,14 +128,24 @@ public class StudentQuizService {
     }
 
     /**
-     * Mark lesson as completed when quiz is passed
+     * Certificate to issue when every lesson of the course is completed now
+     * (null if the course is not complete or a certificate was already issued)
      */
-    private void markLessonAsCompleted(String courseId, String lessonId) {
+    private Certificate certificateIfCompleted(String courseId) {
         try {
-            StudentService studentService = new StudentService(studentId);
-            studentService.markLessonCompleted(courseId, lessonId);
+            studentCourseInfo info = student.getEnrolledCourses().get(courseId);
+            CourseHeader course = Cdb.getSnapshot().getHeader(courseId);
+            if (info == null || course == null || info.getCertificate() != null
+                    || student.numCompleted(courseId) != course.getLessonCount()) {
+                return null;
+            }
+            System.out.println("Student ID: " + studentId + " has completed Course: " + courseId);
+            Certificate certificate = StudentService.generateCertificate(student, courseId);
+            student.addCertificate(courseId, certificate);
+            return certificate;
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
     }
 
@@ -3,6 +3,10 @@ package backend.services;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
@@ -10,97 +14,146 @@ import javax.swing.UnsupportedLookAndFeelException;
 import backend.databaseManager.*;
 import backend.models.*;
 import backend.models.Student.studentCourseInfo;
+import backend.models.parents.User;
 import frontend.student.CertificateViewerFrame;
 
 public class StudentService {
     private Student student;
     private CourseDatabaseManager Cdb;
     private UsersDatabaseManager Udb;
-    private ArrayList<Course> availableCourses;
+    // LISTS BUILT ON FIRST USE BY THEIR GETTERS (null UNTIL THEN, RESET BY refresh())
+    // the dashboard tables only read the summaries, so building the service reads no course
+    // only headers, the catalog list never needs the lessons of courses not enrolled in
+    private ArrayList<CourseHeader> availableCourses;
     private ArrayList<Instructor> availableInstructors;
     private ArrayList<Course> enrolledCourses;
     private ArrayList<Instructor> enrolledInstructors;
+    // INSTRUCTORS ALREADY LOOKED UP FOR THIS STUDENT (MEMO, CLEARED ON refresh())
+    // the instructor lists are resolved with one batch lookup instead of one getUser per course
+    private HashMap<String, Instructor> instructors = new HashMap<String, Instructor>();
 
     // CLASS CONSTRUCTORS
     public StudentService(Student student) {
         this.student = student;
-        Cdb = new CourseDatabaseManager();
-        Udb = new UsersDatabaseManager();
-        this.availableCourses = new ArrayList<Course>();
-        this.availableInstructors = new ArrayList<Instructor>();
-        this.enrolledCourses = new ArrayList<Course>();
-        this.enrolledInstructors = new ArrayList<Instructor>();
-        try {
-            getAvailableCoursesAndInstructors();
-            getEnrolledCoursesAndInstructors();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        Cdb = CourseDatabaseManager.getInstance();
+        Udb = UsersDatabaseManager.getInstance();
     }
 
     public StudentService(String studentId) {
-        Cdb = new CourseDatabaseManager();
-        Udb = new UsersDatabaseManager();
+        Cdb = CourseDatabaseManager.getInstance();
+        Udb = UsersDatabaseManager.getInstance();
         this.student = (Student) Udb.getUser(studentId);
         if (this.student == null) {
             System.out.println("student with this id not found");
         }
-        this.availableCourses = new ArrayList<Course>();
-        this.availableInstructors = new ArrayList<Instructor>();
-        this.enrolledCourses = new ArrayList<Course>();
-        this.enrolledInstructors = new ArrayList<Instructor>();
-        try {
-            getAvailableCoursesAndInstructors();
-            getEnrolledCoursesAndInstructors();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
     }
 
     // METHOD TO GET ALL available COURSES AND INSTRUCTORS for a STUDENT (excluding
     // ENROLLED)
     private void getAvailableCoursesAndInstructors() {
-        ArrayList<Course> allCourses = Cdb.getApprovedCourses();
-        for (int i = 0; i < allCourses.size(); i++) {
-            String id = allCourses.get(i).getCourseId();
-            if (!student.getEnrolledCourses().containsKey(id)) {
-                availableCourses.add(Cdb.getCourse(id));
-                Course course = Cdb.getCourse(id);
-                Instructor instructor = (Instructor) Udb.getUser(course.getInstructorId());
-                this.availableInstructors.add(instructor);
+        availableCourses = new ArrayList<CourseHeader>();
+        availableInstructors = new ArrayList<Instructor>();
+        try {
+            ArrayList<CourseHeader> allCourses = Cdb.getCourseHeaders("APPROVED");
+            ArrayList<String> instructorIds = new ArrayList<String>();
+            for (int i = 0; i < allCourses.size(); i++) {
+                CourseHeader course = allCourses.get(i);
+                if (!student.getEnrolledCourses().containsKey(course.getCourseId())) {
+                    availableCourses.add(course);
+                    instructorIds.add(course.getInstructorId());
+                }
             }
+            availableInstructors = getInstructorsOfCourses(instructorIds);
+        } catch (Exception e) {
+            e.printStackTrace();
         }
     }
 
     // METHOD TO GET ALL available COURSES AND INSTRUCTORS for a STUDENT (excluding
     // ENROLLED)
+    // reads only the student's courses (roster reverse index) from one catalog version
     private void getEnrolledCoursesAndInstructors() {
-        ArrayList<Course> allCourses = Cdb.getAllCourses();
-        for (int i = 0; i < allCourses.size(); i++) {
-            String id = allCourses.get(i).getCourseId();
-            if (student.getEnrolledCourses().containsKey(id)) {
-                enrolledCourses.add(Cdb.getCourse(id));
-                Course course = Cdb.getCourse(id);
-                Instructor instructor = (Instructor) Udb.getUser(course.getInstructorId());
-                this.enrolledInstructors.add(instructor);
+        enrolledCourses = new ArrayList<Course>();
+        enrolledInstructors = new ArrayList<Instructor>();
+        try {
+            CourseCatalogSnapshot catalog = Cdb.getSnapshot();
+            ArrayList<String> courseIds = catalog.getCourseIdsOfStudent(student.getUserId());
+            ArrayList<String> instructorIds = new ArrayList<String>();
+            for (int i = 0; i < courseIds.size(); i++) {
+                String id = courseIds.get(i);
+                if (student.getEnrolledCourses().containsKey(id)) {
+                    Course course = catalog.getCourse(id);
+                    enrolledCourses.add(course);
+                    instructorIds.add(course.getInstructorId());
+                }
             }
+            enrolledInstructors = getInstructorsOfCourses(instructorIds);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // INSTRUCTOR OF EVERY COURSE (SAME ORDER AS THE GIVEN INSTRUCTOR IDS)
+    // with a single batch lookup of the instructors not seen before
+    private ArrayList<Instructor> getInstructorsOfCourses(List<String> instructorIds) {
+        lookUpInstructors(new LinkedHashSet<String>(instructorIds));
+        ArrayList<Instructor> result = new ArrayList<Instructor>(instructorIds.size());
+        for (String id : instructorIds) {
+            result.add(instructors.get(id));
         }
+        return result;
+    }
+
+    // ADDS THE MISSING INSTRUCTORS TO THE MEMO WITH ONE CALL TO THE USERS STORE
+    private void lookUpInstructors(Collection<String> instructorIds) {
+        ArrayList<String> missing = new ArrayList<String>();
+        for (String id : instructorIds) {
+            if (id != null && !instructors.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        LinkedHashMap<String, User> found = Udb.getUsers(missing);
+        for (String id : missing) {
+            User user = found.get(id);
+            // unknown ids are memoized too, so they are not looked up again
+            instructors.put(id, user instanceof Instructor ? (Instructor) user : null);
+        }
+    }
+
+    // INSTRUCTOR OF A COURSE FROM THE MEMO (LOOKED UP ONCE IF NOT SEEN YET)
+    private Instructor instructorOf(String instructorId) {
+        lookUpInstructors(Collections.singletonList(instructorId));
+        return instructors.get(instructorId);
     }
 
     // METHOD TO ENROLL A STUDENT IN A COURSE AND SAVE THE DATA PERMANENTLY
     public void enrollInCourse(String courseID) {
-        student.enroll(courseID);
         Course course = Cdb.getCourse(courseID);
+        if (course == null) {
+            System.out.println("enrollInCourse : course not found");
+            return;
+        }
+        student.enroll(courseID);
         course.addStudent(student.getUserId());
-        Udb.update(student);
-        Udb.SaveUsersToFile();
-        Cdb.update(course);
-        Cdb.SaveCoursesToFile();
-        // add enrolled to list of enrolled
-        enrolledInstructors.add((Instructor) Udb.getUser(course.getInstructorId()));
-        enrolledCourses.add(course);
+        // both sides of the enrollment are written together or not at all
+        UnitOfWork uow = new UnitOfWork();
+        uow.putUser(student);
+        uow.putCourse(course);
+        if (!uow.commit()) {
+            // keep the in-memory student as it is on disk
+            student = (Student) Udb.getUser(student.getUserId());
+            return;
+        }
+        // add enrolled to list of enrolled (lists not built yet will be read with it)
+        if (enrolledCourses != null) {
+            enrolledInstructors.add(instructorOf(course.getInstructorId()));
+            enrolledCourses.add(course);
+        }
         // delete enrolled course from list of available
-        for (int i = 0; i < availableCourses.size(); i++) {
+        for (int i = 0; availableCourses != null && i < availableCourses.size(); i++) {
             if (courseID.equals(availableCourses.get(i).getCourseId())) {
                 availableInstructors.remove(i);
                 availableCourses.remove(i);
@@ -109,10 +162,120 @@ public class StudentService {
         }
     }
 
+    // ONE (studentId, courseId) PAIR OF A BULK ENROLLMENT AND ITS RESULT
+    public static class Enrollment {
+        private final String studentId;
+        private final String courseId;
+        private boolean enrolled;
+        private String message;
+
+        public Enrollment(String studentId, String courseId) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.message = "not processed";
+        }
+
+        public String getStudentId() {
+            return studentId;
+        }
+
+        public String getCourseId() {
+            return courseId;
+        }
+
+        // true only if this pair was enrolled by the batch
+        public boolean isEnrolled() {
+            return enrolled;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        private void setResult(boolean enrolled, String message) {
+            this.enrolled = enrolled;
+            this.message = message;
+        }
+    }
+
+    // METHOD TO ENROLL MANY STUDENTS IN MANY COURSES AT ONCE (COHORT ONBOARDING)
+    // every pair is checked on its own and gets its own result, the accepted ones of
+    // both stores are committed together as a single journal append
+    public static ArrayList<Enrollment> enrollAll(List<Enrollment> enrollments) {
+        CourseDatabaseManager Cdb = CourseDatabaseManager.getInstance();
+        UsersDatabaseManager Udb = UsersDatabaseManager.getInstance();
+        // every student and course is fetched once and changed in place across the batch
+        LinkedHashMap<String, Student> changedStudents = new LinkedHashMap<String, Student>();
+        LinkedHashMap<String, Course> changedCourses = new LinkedHashMap<String, Course>();
+        HashMap<String, Course> courses = new HashMap<String, Course>();
+        ArrayList<Enrollment> results = new ArrayList<Enrollment>();
+        if (enrollments == null) {
+            return results;
+        }
+        // the students of the whole batch are fetched with one lookup of the users store
+        ArrayList<String> studentIds = new ArrayList<String>();
+        for (Enrollment enrollment : enrollments) {
+            if (enrollment != null) {
+                studentIds.add(enrollment.getStudentId());
+            }
+        }
+        HashMap<String, User> users = new HashMap<String, User>(Udb.getUsers(studentIds));
+        for (Enrollment enrollment : enrollments) {
+            if (enrollment == null) {
+                continue;
+            }
+            results.add(enrollment);
+            String studentId = enrollment.getStudentId();
+            String courseId = enrollment.getCourseId();
+            if (studentId == null || courseId == null) {
+                enrollment.setResult(false, "missing student or course id");
+                continue;
+            }
+            if (!courses.containsKey(courseId)) {
+                courses.put(courseId, Cdb.getCourse(courseId));
+            }
+            User user = users.get(studentId);
+            Course course = courses.get(courseId);
+            if (!(user instanceof Student)) {
+                enrollment.setResult(false, "student not found");
+            } else if (course == null) {
+                enrollment.setResult(false, "course not found");
+            } else if (((Student) user).getEnrolledCourses().containsKey(courseId)) {
+                enrollment.setResult(false, "already enrolled");
+            } else {
+                Student student = (Student) user;
+                student.enroll(courseId);
+                course.addStudent(studentId);
+                changedStudents.put(studentId, student);
+                changedCourses.put(courseId, course);
+                enrollment.setResult(true, "enrolled");
+            }
+        }
+        UnitOfWork uow = new UnitOfWork();
+        for (Student student : changedStudents.values()) {
+            uow.putUser(student);
+        }
+        for (Course course : changedCourses.values()) {
+            uow.putCourse(course);
+        }
+        if (!uow.commit()) {
+            for (Enrollment enrollment : results) {
+                if (enrollment.isEnrolled()) {
+                    enrollment.setResult(false, "not saved");
+                }
+            }
+            return results;
+        }
+        System.out.println("enrollAll: " + changedStudents.size() + " students enrolled in "
+                + changedCourses.size() + " courses.");
+        return results;
+    }
+
     // METHOD TO MARK A LESSON COMPLETED PERMANENTLY
     public void markLessonCompleted(String courseID, String lessonID) {
         student.markLessonComplete(courseID, lessonID);
-        if (student.numCompleted(courseID) == Cdb.getCourse(courseID).getLessons().size()) {
+        CourseHeader course = Cdb.getSnapshot().getHeader(courseID);
+        if (course != null && student.numCompleted(courseID) == course.getLessonCount()) {
             System.out.println("Student ID: " + student.getUserId() + " has completed Course: " + courseID);
             Certificate cert = generateCertificate(courseID);
             student.addCertificate(courseID, cert);
@@ -126,25 +289,38 @@ public class StudentService {
     //!NTST
     // GENERATE CERTIFICATE
     public Certificate generateCertificate(String courseID) {
+        return generateCertificate(student, courseID);
+    }
+
+    // CERTIFICATE OF A STUDENT FOR A COURSE FROM ITS BEST ATTEMPTS
+    // (static so the quiz submission can issue it without building a StudentService)
+    // the course is read once from the catalog snapshot, the instructor name from the username index
+    static Certificate generateCertificate(Student student, String courseID) {
         System.out.println("Generating certificate for course: " + courseID + " for student: " + student.getUserId());
-        String studentId = student.getUserId();
-        String studentName = student.getUsername();
-        String courseTitle = Cdb.getCourse(courseID).getTitle();
-        // !MILDLY ERROR PRONE
-        String instructorName = Udb.getUser(Cdb.getCourse(courseID).getInstructorId()).getUsername();
-        double finalScore = 0;
-        studentCourseInfo courseInfo = student.getEnrolledCourses().get(courseID);
-        // EACH LESSION HAS 100 MARKS
-        double totalMarksofCourse = Cdb.getCourse(courseID).getLessons().size() * 100;
-        // GET MAX OF EACH ATTEMPT ,LAMBDA EXPRESSION IS USED
-        double totalMarksObtained = courseInfo.getQuizAttempts().values().stream()
-                .filter(attempts -> !attempts.isEmpty())
-                .mapToInt(Collections::max)
-                .sum();
-        finalScore = (double) (totalMarksObtained / totalMarksofCourse) * 100;
-        Certificate cert = new Certificate(studentId, studentName,
-                courseID, courseTitle, instructorName, finalScore);
-        return cert;
+        CourseHeader course = CourseDatabaseManager.getInstance().getSnapshot().getHeader(courseID);
+        if (course == null) {
+            System.out.println("generateCertificate: course not found " + courseID);
+            return null;
+        }
+        String instructorName = UsersDatabaseManager.getInstance().getUsername(course.getInstructorId());
+        return generateCertificate(student, course, instructorName);
+    }
+
+    // CERTIFICATE FROM A COURSE AND INSTRUCTOR NAME THAT ARE ALREADY RESOLVED
+    // (no lookup and no shared state, batch issuance calls it in parallel)
+    static Certificate generateCertificate(Student student, CourseHeader course, String instructorName) {
+        studentCourseInfo courseInfo = student.getEnrolledCourses().get(course.getCourseId());
+        // EACH LESSION HAS 100 MARKS, THE BEST ATTEMPT OF EACH LESSON COUNTS
+        double totalMarksofCourse = course.getLessonCount() * 100;
+        double totalMarksObtained = 0;
+        for (ArrayList<Integer> attempts : courseInfo.getQuizAttempts().values()) {
+            if (attempts != null && !attempts.isEmpty()) {
+                totalMarksObtained += Collections.max(attempts);
+            }
+        }
+        double finalScore = totalMarksofCourse > 0 ? (totalMarksObtained / totalMarksofCourse) * 100 : 0;
+        return new Certificate(student.getUserId(), student.getUsername(),
+                course.getCourseId(), course.getTitle(), instructorName, finalScore);
     }
 
     // METHOD TO RETURN IDs OF COMPLETED LESSONS
@@ -153,37 +329,65 @@ public class StudentService {
     }
 
     // NOT IMPORTANT AS EVERYTHING IS ALWAYS REFRESHED
+    // the managers are shared, so this only drops the lists, the getters rebuild them from memory
     public void refresh() {
-        Cdb = new CourseDatabaseManager();
-        Udb = new UsersDatabaseManager();
         this.student = (Student) Udb.getUser(student.getUserId());
         System.out.println("student with this id not found");
-        this.availableCourses = new ArrayList<Course>();
-        this.availableInstructors = new ArrayList<Instructor>();
-        this.enrolledCourses = new ArrayList<Course>();
-        this.enrolledInstructors = new ArrayList<Instructor>();
-        try {
-            getAvailableCoursesAndInstructors();
-            getEnrolledCoursesAndInstructors();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        this.availableCourses = null;
+        this.availableInstructors = null;
+        this.enrolledCourses = null;
+        this.enrolledInstructors = null;
+        this.instructors = new HashMap<String, Instructor>();
     }
 
     // standard getters
-    public ArrayList<Course> getAvailableCourses() {
+    public ArrayList<CourseHeader> getAvailableCourses() {
+        if (availableCourses == null) {
+            getAvailableCoursesAndInstructors();
+        }
         return availableCourses;
     }
 
     public ArrayList<Instructor> getAvailableInstructors() {
+        if (availableInstructors == null) {
+            getAvailableCoursesAndInstructors();
+        }
         return availableInstructors;
     }
 
+    // TABLE ROWS OF THE APPROVED COURSES THE STUDENT IS NOT ENROLLED IN (NO LESSON OR USER IS COPIED)
+    public ArrayList<CourseSummary> getAvailableCourseSummaries() {
+        ArrayList<String> courseIds = new ArrayList<String>();
+        for (String id : Cdb.getCourseIds(ApprovalStatus.APPROVED, 0, Integer.MAX_VALUE)) {
+            if (!student.getEnrolledCourses().containsKey(id)) {
+                courseIds.add(id);
+            }
+        }
+        return Cdb.getCourseSummaries(courseIds);
+    }
+
+    // TABLE ROWS OF THE ENROLLED COURSES
+    public ArrayList<CourseSummary> getEnrolledCourseSummaries() {
+        ArrayList<String> courseIds = new ArrayList<String>();
+        for (String id : Cdb.getCourseIdsOfStudent(student.getUserId())) {
+            if (student.getEnrolledCourses().containsKey(id)) {
+                courseIds.add(id);
+            }
+        }
+        return Cdb.getCourseSummaries(courseIds);
+    }
+
     public ArrayList<Course> getEnrolledCourses() {
+        if (enrolledCourses == null) {
+            getEnrolledCoursesAndInstructors();
+        }
         return enrolledCourses;
     }
 
     public ArrayList<Instructor> getEnrolledInstructors() {
+        if (enrolledInstructors == null) {
+            getEnrolledCoursesAndInstructors();
+        }
         return enrolledInstructors;
     }
 
@@ -16,7 +16,10 @@ import java.util.ArrayList;
  */
 public class AdminDashboard extends javax.swing.JFrame {
 
+    private static final int PENDING_PAGE_SIZE = 100;
     private String adminId;
+    // FIRST ROW OF THE PENDING PAGE SHOWN
+    private int pendingOffset = 0;
     AdminService AS;
     /**
      * Creates new form AdminDashboard
@@ -50,6 +53,9 @@ public class AdminDashboard extends javax.swing.JFrame {
         btnRefresh = new javax.swing.JButton();
         btnAccept = new javax.swing.JButton();
         btnRemove = new javax.swing.JButton();
+        btnPreviousPending = new javax.swing.JButton();
+        lblPendingPage = new javax.swing.JLabel();
+        btnNextPending = new javax.swing.JButton();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
 
@@ -154,6 +160,27 @@ public class AdminDashboard extends javax.swing.JFrame {
             }
         });
 
+        btnPreviousPending.setFont(new java.awt.Font("Segoe UI", 1, 12)); // NOI18N
+        btnPreviousPending.setText("<");
+        btnPreviousPending.setToolTipText("Previous pending courses");
+        btnPreviousPending.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnPreviousPendingActionPerformed(evt);
+            }
+        });
+
+        lblPendingPage.setFont(new java.awt.Font("Segoe UI", 0, 12)); // NOI18N
+        lblPendingPage.setText("Pending 0 of 0");
+
+        btnNextPending.setFont(new java.awt.Font("Segoe UI", 1, 12)); // NOI18N
+        btnNextPending.setText(">");
+        btnNextPending.setToolTipText("Next pending courses");
+        btnNextPending.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnNextPendingActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -168,6 +195,12 @@ public class AdminDashboard extends javax.swing.JFrame {
                                                 .addComponent(btnAccept)
                                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                                                 .addComponent(btnRemove)
+                                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                                                .addComponent(btnPreviousPending)
+                                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                                .addComponent(lblPendingPage)
+                                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                                .addComponent(btnNextPending)
                                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, 23,
                                                         Short.MAX_VALUE)
                                                 .addComponent(btnLogout))
@@ -187,13 +220,17 @@ public class AdminDashboard extends javax.swing.JFrame {
                                         .addComponent(btnLogout, javax.swing.GroupLayout.Alignment.TRAILING)
                                         .addComponent(btnRefresh, javax.swing.GroupLayout.Alignment.TRAILING)
                                         .addComponent(btnAccept, javax.swing.GroupLayout.Alignment.TRAILING)
-                                        .addComponent(btnRemove, javax.swing.GroupLayout.Alignment.TRAILING))
+                                        .addComponent(btnRemove, javax.swing.GroupLayout.Alignment.TRAILING)
+                                        .addComponent(btnPreviousPending, javax.swing.GroupLayout.Alignment.TRAILING)
+                                        .addComponent(lblPendingPage, javax.swing.GroupLayout.Alignment.TRAILING)
+                                        .addComponent(btnNextPending, javax.swing.GroupLayout.Alignment.TRAILING))
                                 .addContainerGap()));
 
         pack();
     }// </editor-fold>//GEN-END:initComponents
 
     private void btnLogoutActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnLogoutActionPerformed
+        new AuthManager().logout();
         JFrame frame = new Login();
         frame.setDefaultCloseOperation(EXIT_ON_CLOSE);
         frame.setLocationRelativeTo(null);
@@ -237,16 +274,38 @@ public class AdminDashboard extends javax.swing.JFrame {
 
     }// GEN-LAST:event_btnRemoveActionPerformed
 
+    private void btnPreviousPendingActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnPreviousPendingActionPerformed
+        pendingOffset = Math.max(pendingOffset - PENDING_PAGE_SIZE, 0);
+        loadPendingCourses();
+    }// GEN-LAST:event_btnPreviousPendingActionPerformed
+
+    private void btnNextPendingActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnNextPendingActionPerformed
+        pendingOffset += PENDING_PAGE_SIZE;
+        loadPendingCourses();
+    }// GEN-LAST:event_btnNextPendingActionPerformed
+
         private void loadPendingCourses() {
         DefaultTableModel model = (DefaultTableModel) jTable1Pendingcourses.getModel();
         model.setRowCount(0);
 
-        for (Course c : AS.getPendingCourses()) {
+        // one page of the pending queue is read at a time, the label tells how many are waiting
+        int total = AS.countCourses(ApprovalStatus.PENDING);
+        if (pendingOffset >= total) {
+            // the queue shrank under the page (courses approved or rejected), go to its last page
+            pendingOffset = Math.max((total - 1) / PENDING_PAGE_SIZE * PENDING_PAGE_SIZE, 0);
+        }
+        ArrayList<CourseSummary> page = AS.getCourseSummaries(ApprovalStatus.PENDING, pendingOffset,
+                PENDING_PAGE_SIZE);
+        lblPendingPage.setText(page.isEmpty() ? "Pending 0 of " + total
+                : "Pending " + (pendingOffset + 1) + "-" + (pendingOffset + page.size()) + " of " + total);
+        btnPreviousPending.setEnabled(pendingOffset > 0);
+        btnNextPending.setEnabled(pendingOffset + PENDING_PAGE_SIZE < total);
+        for (CourseSummary c : page) {
             model.addRow(new Object[] {
                     c.getCourseId(),
                     c.getTitle(),
                     c.getDescription(),
-                    c.getInstructorId(),
+                    instructorOf(c),
                     c.getApprovalStatus()
             });
         }
@@ -256,21 +315,26 @@ public class AdminDashboard extends javax.swing.JFrame {
         DefaultTableModel model = (DefaultTableModel) jTable2Acceptedorrejected.getModel();
         model.setRowCount(0);
 
-        ArrayList<Course> all = new ArrayList<>();
-        all = AS.getApprovedCourses();
-        all.addAll(AS.getRejectedCourses());
+        ArrayList<CourseSummary> all = new ArrayList<>();
+        all = AS.getCourseSummaries(ApprovalStatus.APPROVED, 0, Integer.MAX_VALUE);
+        all.addAll(AS.getCourseSummaries(ApprovalStatus.REJECTED, 0, Integer.MAX_VALUE));
 
-        for (Course c : all) {
+        for (CourseSummary c : all) {
             model.addRow(new Object[] {
                     c.getCourseId(),
                     c.getTitle(),
                     c.getDescription(),
-                    c.getInstructorId(),
+                    instructorOf(c),
                     c.getApprovalStatus()
             });
         }
     }
 
+    // instructor name, or the id if the account no longer exists
+    private static String instructorOf(CourseSummary c) {
+        return c.getInstructorName() != null ? c.getInstructorName() : c.getInstructorId();
+    }
+
 
     /**
      * @param args the command line arguments
@@ -318,11 +382,14 @@ public class AdminDashboard extends javax.swing.JFrame {
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton btnAccept;
     private javax.swing.JButton btnLogout;
+    private javax.swing.JButton btnNextPending;
+    private javax.swing.JButton btnPreviousPending;
     private javax.swing.JButton btnRefresh;
     private javax.swing.JButton btnRemove;
     private javax.swing.JScrollPane jScrollPane1;
     private javax.swing.JScrollPane jScrollPane2;
     private javax.swing.JTabbedPane jTabbedPane1;
+    private javax.swing.JLabel lblPendingPage;
     private javax.swing.JTable jTable1Pendingcourses;
     private javax.swing.JTable jTable2Acceptedorrejected;
     private javax.swing.JToolBar jToolBar1;
@@ -30,11 +30,11 @@ public class CourseEditor extends javax.swing.JDialog {
                 super(parent, "Dialog", true);
                 this.parentView = parent; // Store reference to parent
                 this.mode = "create";
-                Cdb = new CourseDatabaseManager();
-                Udb = new UsersDatabaseManager();
-                this.courseId = Cdb.generateId();
+                Cdb = CourseDatabaseManager.getInstance();
+                Udb = UsersDatabaseManager.getInstance();
+                // the id is allocated when the course is saved, a cancelled dialog uses none
                 this.instructor = (Instructor) Udb.getUser(instructorId);
-                course = new Course(courseId, "", instructorId, "");
+                course = new Course("", instructorId, "");
                 initComponents();
                 try {
                         advancedIntialize();
@@ -47,8 +47,8 @@ public class CourseEditor extends javax.swing.JDialog {
                 super(parent, "Dialog", true);
                 this.parentView = parent; // Store reference to parent
                 this.mode = "Edit";
-                Cdb = new CourseDatabaseManager();
-                Udb = new UsersDatabaseManager();
+                Cdb = CourseDatabaseManager.getInstance();
+                Udb = UsersDatabaseManager.getInstance();
                 this.courseId = courseId;
                 this.instructorId = instructorId;
                 this.instructor = (Instructor) Udb.getUser(instructorId);
@@ -297,11 +297,23 @@ public class CourseEditor extends javax.swing.JDialog {
                         if (mode.equalsIgnoreCase("create")) {
                                 course.setTitle(titleField.getText());
                                 course.setDescription(describtionField.getText());
-                                Cdb.update(course);
+                                if (courseId == null) {
+                                        // kept if the save fails, so trying again does not use another id
+                                        courseId = Cdb.generateId();
+                                        course.setCourseId(courseId);
+                                }
                                 instructor.addCreatedCourse(courseId);
-                                Cdb.SaveCoursesToFile();
-                                Udb.update(instructor);
-                                Udb.SaveUsersToFile();
+                                // the new course and its owner are saved together or not at all
+                                UnitOfWork uow = new UnitOfWork();
+                                uow.putCourse(course);
+                                uow.putUser(instructor);
+                                if (!uow.commit()) {
+                                        instructor.removeCreatedCourse(courseId);
+                                        javax.swing.JOptionPane.showMessageDialog(this,
+                                                        "course could not be saved.",
+                                                        "Error", javax.swing.JOptionPane.ERROR_MESSAGE);
+                                        return;
+                                }
                                 // Refresh parent table
                                 if (parentView != null) {
                                         parentView.initializeTableAndLoadData();
@@ -1,6 +1,7 @@
 package frontend.Instructor;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.JDialog;
 
@@ -30,8 +31,8 @@ public class EnrolledStudents extends javax.swing.JDialog {
         this.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
         this.setLocationRelativeTo(parent);
         this.courseId = courseId;
-        Cdb = new CourseDatabaseManager();
-        Udb = new UsersDatabaseManager();
+        Cdb = CourseDatabaseManager.getInstance();
+        Udb = UsersDatabaseManager.getInstance();
         course = Cdb.getCourse(courseId);
         students = new ArrayList<Student>();
         initComponents();
@@ -49,7 +50,7 @@ public class EnrolledStudents extends javax.swing.JDialog {
                 course.getTitle() + " (ID: " + courseId + ")");
 
         // populate enrolled students arraylist
-        ArrayList<String> studentIDs = course.getStudents();
+        List<String> studentIDs = course.getStudents();
         for (int i = 0; i < studentIDs.size(); i++) {
             s = (Student) Udb.getUser(studentIDs.get(i));
             students.add(s);
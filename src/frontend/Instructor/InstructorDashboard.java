@@ -9,7 +9,8 @@ import java.util.ArrayList;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 
-import backend.models.Course;
+import backend.databaseManager.CourseSummary;
+import backend.services.AuthManager;
 import backend.services.InstructorService;
 import frontend.*;
 
@@ -59,13 +60,13 @@ public class InstructorDashboard extends javax.swing.JFrame {
         // Refresh to get latest data
         IS.refresh();
         // Load created courses
-        ArrayList<Course> createdCourses = IS.getCreatedCourses();
+        ArrayList<CourseSummary> createdCourses = IS.getCourseSummaries();
 
         for (int i = 0; i < createdCourses.size(); i++) {
-            Course c = createdCourses.get(i);
+            CourseSummary c = createdCourses.get(i);
             createdCoursesModel.addRow(new Object[] {
                     c.getCourseId(), c.getTitle(),
-                    c.getDescription(), Integer.toString(c.getStudents().size())
+                    c.getDescription(), Integer.toString(c.getStudentCount())
             });
 
         }
@@ -314,7 +315,7 @@ public class InstructorDashboard extends javax.swing.JFrame {
                 "Confirm Logout", javax.swing.JOptionPane.YES_NO_OPTION);
 
         if (confirm == javax.swing.JOptionPane.YES_OPTION) {
-            // Suggested function: AuthService.logout(currentStudentId)
+            new AuthManager().logout();
             Login frame = new Login();
             frame.setVisible(true);
             frame.setLocationRelativeTo(null);
@@ -6,6 +6,7 @@ import javax.swing.JDialog;
 
 import backend.databaseManager.*;
 import backend.models.*;
+import backend.services.QuizRegradeService;
 
 /**
  *
@@ -32,7 +33,7 @@ public class LessonEditor extends JDialog {
                 this.parentView = parent; // Store reference to parent
                 this.mode = "create";
                 this.courseId = courseId;
-                Cdb = new CourseDatabaseManager();
+                Cdb = CourseDatabaseManager.getInstance();
                 course = Cdb.getCourse(courseId);
                 initComponents();
                 advancedIntialize();
@@ -48,7 +49,7 @@ public class LessonEditor extends JDialog {
                 this.mode = "edit";
                 this.courseId = courseId;
                 this.lessonId = lessonId;
-                Cdb = new CourseDatabaseManager();
+                Cdb = CourseDatabaseManager.getInstance();
                 course = Cdb.getCourse(courseId);
                 for (int i = 0; i < course.getLessons().size(); i++) {
                         if (lessonId.equals(course.getLessons().get(i).getLessonId())) {
@@ -613,6 +614,8 @@ public class LessonEditor extends JDialog {
                                 course.editLesson(lessonId, lesson);
                                 Cdb.update(course);
                                 Cdb.SaveCoursesToFile();
+                                // questions may have been edited, stored scores follow the new key
+                                QuizRegradeService.regradeInBackground(courseId, quiz);
                                 // Refresh parent table
                                 // !NTST
                                 if (parentView != null && parentView instanceof ViewLessons) {
@@ -697,6 +700,7 @@ public class LessonEditor extends JDialog {
                         quiz.removeQuestion(id);
                         Cdb.update(course);
                         Cdb.SaveCoursesToFile();
+                        QuizRegradeService.regradeInBackground(courseId, quiz);
                 }
                 try {
                         refreshQuestionsTable();
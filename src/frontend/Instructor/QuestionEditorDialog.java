@@ -46,7 +46,7 @@ public class QuestionEditorDialog extends javax.swing.JDialog {
         public QuestionEditorDialog(LessonEditor parent, String CourseId, String LessonId) {
                 super(parent, "Dialog", true);
                 mode = "create";
-                this.Cdb = new CourseDatabaseManager();
+                this.Cdb = CourseDatabaseManager.getInstance();
                 this.courseId = CourseId;
                 this.lessonId = LessonId;
                 this.course = Cdb.getCourse(courseId);
@@ -74,7 +74,7 @@ public class QuestionEditorDialog extends javax.swing.JDialog {
         public QuestionEditorDialog(LessonEditor parent, String CourseId, String LessonId, String questionId) {
                 super(parent, "Dialog", true);
                 mode = "edit";
-                this.Cdb = new CourseDatabaseManager();
+                this.Cdb = CourseDatabaseManager.getInstance();
                 this.courseId = CourseId;
                 this.lessonId = LessonId;
                 this.course = Cdb.getCourse(courseId);
@@ -31,7 +31,7 @@ public class ViewLessons extends JDialog {
         this.courseId = courseId;
         this.Title = "";
         // name of label is not right
-        Cdb = new CourseDatabaseManager();
+        Cdb = CourseDatabaseManager.getInstance();
         initComponents();
         initializeTableAndLoadData();
         LblInstructorInfo.setText("Lessons of Course: " + Title + " (ID: " + courseId + ")");
@@ -45,7 +45,7 @@ public class ViewLessons extends JDialog {
         this.courseId = courseId;
         this.Title = "";
         // name of label is not right
-        Cdb = new CourseDatabaseManager();
+        Cdb = CourseDatabaseManager.getInstance();
         initComponents();
         initializeTableAndLoadData();
         LblInstructorInfo.setText("Lessons of Course: " + Title + " (ID: " + courseId + ")");
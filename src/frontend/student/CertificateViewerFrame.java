@@ -165,9 +165,8 @@ public class CertificateViewerFrame extends javax.swing.JFrame {
                                         JOptionPane.INFORMATION_MESSAGE);
                             } else {
                                 JOptionPane.showMessageDialog(CertificateViewerFrame.this,
-                                        "PDF generation was cancelled or failed.\n" +
-                                                "Please ensure you have a PDF printer available\n" +
-                                                "(like 'Microsoft Print to PDF' on Windows).",
+                                        "PDF generation failed.\n" +
+                                                "Please ensure you have write permissions to the save location.",
                                         "PDF Generation",
                                         JOptionPane.WARNING_MESSAGE);
                             }
@@ -175,9 +174,8 @@ public class CertificateViewerFrame extends javax.swing.JFrame {
                             JOptionPane.showMessageDialog(CertificateViewerFrame.this,
                                     "Error generating PDF: " + ex.getMessage() + "\n\n" +
                                             "Please ensure:\n" +
-                                            "1. You have a PDF printer installed\n" +
-                                            "2. You have write permissions to the save location\n" +
-                                            "3. The file is not open in another program",
+                                            "1. You have write permissions to the save location\n" +
+                                            "2. The file is not open in another program",
                                     "PDF Generation Error",
                                     JOptionPane.ERROR_MESSAGE);
                             ex.printStackTrace();
@@ -6,11 +6,12 @@ import javax.swing.JFrame;
 import javax.swing.UIManager;
 
 import backend.databaseManager.CourseDatabaseManager;
+import backend.databaseManager.CourseSummary;
 import backend.databaseManager.UsersDatabaseManager;
 import backend.models.Course;
-import backend.models.Instructor;
 import backend.models.Lesson;
 import backend.models.Student;
+import backend.services.AuthManager;
 import backend.services.StudentQuizService;
 import backend.services.StudentService;
 import frontend.Login;
@@ -54,8 +55,8 @@ public class StudentDashboard extends javax.swing.JFrame {
                 this.currentStudentId = studentId;
                 this.currentStudentName = studentName;
                 SS = new StudentService(currentStudentId);
-                Cdb = new CourseDatabaseManager();
-                Udb = new UsersDatabaseManager();
+                Cdb = CourseDatabaseManager.getInstance();
+                Udb = UsersDatabaseManager.getInstance();
                 initComponents();
                 initializeEnhancedFeatures();
         }
@@ -465,7 +466,7 @@ public class StudentDashboard extends javax.swing.JFrame {
                                 "Confirm Logout", javax.swing.JOptionPane.YES_NO_OPTION);
 
                 if (confirm == javax.swing.JOptionPane.YES_OPTION) {
-                        // Suggested function: AuthService.logout(currentStudentId)
+                        new AuthManager().logout();
                         Login frame = new Login();
                         frame.setVisible(true);
                         frame.setLocationRelativeTo(null);
@@ -611,21 +612,20 @@ public class StudentDashboard extends javax.swing.JFrame {
          */
         private void loadStudentData() {
                 // !NTST
-                ArrayList<Course> availableCourses = SS.getAvailableCourses();
-                ArrayList<Instructor> availableInstructors = SS.getAvailableInstructors();
-                ArrayList<Course> enrolledCourses = SS.getEnrolledCourses();
-                ArrayList<Instructor> enrolledInstructors = SS.getEnrolledInstructors();
+                // summaries: the tables need neither the lessons nor the instructor accounts
+                ArrayList<CourseSummary> availableCourses = SS.getAvailableCourseSummaries();
+                ArrayList<CourseSummary> enrolledCourses = SS.getEnrolledCourseSummaries();
                 for (int i = 0; i < availableCourses.size(); i++) {
-                        Course avCrs = availableCourses.get(i);
+                        CourseSummary avCrs = availableCourses.get(i);
                         availableCoursesModel.addRow(new Object[] {
                                         avCrs.getCourseId(), avCrs.getTitle(),
-                                        avCrs.getDescription(), availableInstructors.get(i).getUsername()
+                                        avCrs.getDescription(), avCrs.getInstructorName()
                         });
                 }
                 for (int i = 0; i < enrolledCourses.size(); i++) {
-                        Course enCrs = enrolledCourses.get(i);
+                        CourseSummary enCrs = enrolledCourses.get(i);
                         // for progress
-                        int numLessons = enCrs.getLessons().size();
+                        int numLessons = enCrs.getLessonCount();
                         int numCompleted = SS.getCompletedLesson(enCrs.getCourseId()).size();
                         int percentage = numLessons == 0 ? 0 : (numCompleted * 100) / numLessons;
                         // String shown_progress = Integer.toString(numCompleted) +
@@ -633,7 +633,7 @@ public class StudentDashboard extends javax.swing.JFrame {
                         // Integer.toString(numLessons);
                         enrolledCoursesModel.addRow(new Object[] {
                                         enCrs.getCourseId(), enCrs.getTitle(),
-                                        percentage, enrolledInstructors.get(i).getUsername()
+                                        percentage, enCrs.getInstructorName()
                         });
                 }
         }